@@ -0,0 +1,26 @@
+-- Upgrades a students/ticket schema created by the original version of this service (IDENTITY ids,
+-- no version or deleted_at columns) to what the current entities expect. There is no migration tool
+-- in this project: run it once by hand, with the application stopped, before deploying this version.
+-- A schema that Hibernate creates from scratch (ddl-auto) already has all of this.
+-- Written for H2; the PostgreSQL equivalent of the sequence restart is noted below.
+
+-- @Version column behind ETag / If-Match; existing rows start at version 0
+ALTER TABLE students ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Student ids now come from a pooled sequence (allocationSize = 50). Hibernate's pooled optimizer hands
+-- out (value - 49 .. value], so the sequence must start 50 above the current maximum id.
+CREATE SEQUENCE IF NOT EXISTS student_seq START WITH 50 INCREMENT BY 50;
+ALTER SEQUENCE student_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM students);
+-- PostgreSQL: SELECT setval('student_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM students), false);
+
+-- Soft-delete tombstones for StudentService / TicketService
+ALTER TABLE students ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+ALTER TABLE ticket ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+-- GET /students?course=&country=&sort=lastName becomes an index range scan already in sort order.
+-- The new (course, country, last_name) index also serves the course/country GROUP BY, so the
+-- narrower indexes it replaces are dropped.
+CREATE INDEX IF NOT EXISTS idx_students_course_country_last_name ON students (course, country, last_name);
+CREATE INDEX IF NOT EXISTS idx_students_country_last_name ON students (country, last_name);
+DROP INDEX IF EXISTS idx_students_course_country;
+DROP INDEX IF EXISTS idx_students_country;
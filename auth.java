@@ -0,0 +1,182 @@
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Remembers successful HTTP Basic logins for a short time so that repeated requests with the same
+// credentials skip the BCrypt check. Entries are keyed by an HMAC of the credentials under a random
+// per-process key, so the cache never holds anything that could be replayed or brute-forced offline.
+public class CachingAuthenticationProvider implements AuthenticationProvider, MeterBinder {
+    private final AuthenticationProvider delegate;
+    private final UserDetailsService userDetailsService;
+    private final long ttlNanos;
+    private final int maxSize;
+    
+    private final Map<String, CachedLogin> cache = new ConcurrentHashMap<>();
+    private final ThreadLocal<Mac> mac;
+    
+    private Timer cacheHitTimer;
+    private Timer delegateTimer;
+    private Timer failureTimer;
+    
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, UserDetailsService userDetailsService,
+                                         Duration ttl, int maxSize) {
+        this.delegate = delegate;
+        this.userDetailsService = userDetailsService;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA256");
+                instance.init(new SecretKeySpec(key, "HmacSHA256"));
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+    
+    // Splits authentication time into cache hits, full BCrypt checks and failures
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cacheHitTimer = authenticationTimer(registry, "cache_hit");
+        delegateTimer = authenticationTimer(registry, "bcrypt");
+        failureTimer = authenticationTimer(registry, "failure");
+        Gauge.builder("students.auth.cache.size", cache, Map::size)
+                .description("Cached successful logins")
+                .register(registry);
+    }
+    
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        long start = System.nanoTime();
+        try {
+            Authentication result = authenticateCached(authentication);
+            record(result instanceof CachedAuthentication ? cacheHitTimer : delegateTimer, start);
+            return result;
+        } catch (AuthenticationException e) {
+            record(failureTimer, start);
+            throw e;
+        }
+    }
+    
+    private Authentication authenticateCached(Authentication authentication) {
+        if (!(authentication.getCredentials() instanceof String)) {
+            return delegate.authenticate(authentication);
+        }
+        String key = cacheKey(authentication.getName(), (String) authentication.getCredentials());
+        CachedLogin cached = cache.get(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                UserDetails user = loadUser(authentication.getName());
+                // A changed password or a disabled account invalidates the entry
+                if (user != null && cached.encodedPassword.equals(user.getPassword()) && isUsable(user)) {
+                    CachedAuthentication result = new CachedAuthentication(user);
+                    result.setDetails(authentication.getDetails());
+                    return result;
+                }
+            }
+            cache.remove(key);
+        }
+        
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails) {
+            String encodedPassword = ((UserDetails) result.getPrincipal()).getPassword();
+            if (encodedPassword != null) {
+                if (cache.size() >= maxSize) {
+                    evictExpired();
+                }
+                if (cache.size() < maxSize) {
+                    cache.put(key, new CachedLogin(encodedPassword, ttlNanos));
+                }
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+    
+    public void evictAll() {
+        cache.clear();
+    }
+    
+    private void evictExpired() {
+        cache.values().removeIf(CachedLogin::isExpired);
+    }
+    
+    private UserDetails loadUser(String username) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+    
+    private static void record(Timer timer, long start) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static Timer authenticationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("students.auth")
+                .description("Time spent authenticating HTTP Basic credentials")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+    
+    private static boolean isUsable(UserDetails user) {
+        return user.isEnabled() && user.isAccountNonLocked() && user.isAccountNonExpired() && user.isCredentialsNonExpired();
+    }
+    
+    private String cacheKey(String username, String password) {
+        Mac instance = mac.get();
+        instance.update(username.getBytes(StandardCharsets.UTF_8));
+        instance.update((byte) 0);
+        return Base64.getEncoder().encodeToString(instance.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static class CachedAuthentication extends UsernamePasswordAuthenticationToken {
+        CachedAuthentication(UserDetails user) {
+            super(user, null, user.getAuthorities());
+        }
+    }
+    
+    private static class CachedLogin {
+        private final String encodedPassword;
+        private final long expiresAt;
+        
+        CachedLogin(String encodedPassword, long ttlNanos) {
+            this.encodedPassword = encodedPassword;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+// Bad client input: an unknown field or sort, a malformed cursor or upload, a row that fails validation.
+// Answered with 400 and the message by ApiExceptionHandler. Other IllegalArgumentExceptions are bugs and stay 500s.
+public class BadRequestException extends RuntimeException {
+    
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,241 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// JMH baselines for the students/tickets hot paths. Every performance change should quote these numbers
+// before and after. Repository benchmarks boot the application against an in-memory H2 database seeded
+// with the row count given by the "rows" parameter.
+//
+//   java -jar benchmarks.jar StudentBenchmarks -p rows=10000,1000000
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudentBenchmarks {
+    private static final String[] COURSES = {"B.Tech", "B.Arch", "B.Com", "B.Sc", "M.Tech"};
+    private static final String[] COUNTRIES = {"India", "Canada", "New Zealand", "USA", "Germany"};
+    private static final String[] WORDS = {"login", "error", "timeout", "payment", "network", "printer",
+            "password", "crash", "slow", "report", "export", "email", "upload", "database", "access"};
+    
+    // Run with -prof gc for allocation per operation; payload sizes are printed once per trial
+    @State(Scope.Benchmark)
+    public static class SerializationState {
+        @Param({"100", "10000"})
+        int students;
+        
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        List<Student> page;
+        
+        @Setup
+        public void setUp() throws Exception {
+            page = new ArrayList<>();
+            Iterator<Student> generated = generateStudents(students, new Random(42));
+            generated.forEachRemaining(page::add);
+            System.out.printf("%n%d students: json=%d B, json+gzip=%d B, cbor=%d B, smile=%d B%n", students,
+                    objectMapper.writeValueAsBytes(page).length, gzip(objectMapper.writeValueAsBytes(page)).length,
+                    cborMapper.writeValueAsBytes(page).length, smileMapper.writeValueAsBytes(page).length);
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class ApplicationState {
+        @Param({"10000", "1000000"})
+        int rows;
+        
+        ConfigurableApplicationContext context;
+        StudentService studentService;
+        TicketService ticketService;
+        Random random = new Random(42);
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "spring.jpa.open-in-view=false",
+                            "students.bulk.batch-size=1000",
+                            // Measure the database path, not the list cache
+                            "students.cache.list-max-size=-1")
+                    .run();
+            studentService = context.getBean(StudentService.class);
+            ticketService = context.getBean(TicketService.class);
+            studentService.importStudents(generateStudents(rows, random));
+            for (int i = 0; i < Math.min(rows, 100_000); i++) {
+                ticketService.createTicket(generateTicket(random));
+            }
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class AuthenticationState {
+        AuthenticationProvider bcryptProvider;
+        AuthenticationProvider cachingProvider;
+        UsernamePasswordAuthenticationToken credentials = new UsernamePasswordAuthenticationToken("admin", "adminPass");
+        
+        @Setup
+        public void setUp() {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+            InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(
+                    User.withUsername("admin").password(encoder.encode("adminPass")).roles("ADMIN").build());
+            DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+            dao.setUserDetailsService(users);
+            dao.setPasswordEncoder(encoder);
+            bcryptProvider = dao;
+            cachingProvider = new CachingAuthenticationProvider(dao, users, Duration.ofMinutes(1), 10_000);
+        }
+    }
+    
+    @Benchmark
+    public byte[] serializeStudentPage(SerializationState state) throws Exception {
+        return state.objectMapper.writeValueAsBytes(state.page);
+    }
+    
+    @Benchmark
+    public byte[] serializeStudentPageGzip(SerializationState state) throws Exception {
+        return gzip(state.objectMapper.writeValueAsBytes(state.page));
+    }
+    
+    @Benchmark
+    public byte[] serializeStudentPageCbor(SerializationState state) throws Exception {
+        return state.cborMapper.writeValueAsBytes(state.page);
+    }
+    
+    @Benchmark
+    public byte[] serializeStudentPageSmile(SerializationState state) throws Exception {
+        return state.smileMapper.writeValueAsBytes(state.page);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void streamAllStudents(ApplicationState state, Blackhole blackhole) {
+        state.studentService.streamAllStudents(blackhole::consume);
+    }
+    
+    @Benchmark
+    public StudentPage getStudentPage(ApplicationState state) {
+        long afterId = state.random.nextInt(state.rows);
+        return state.studentService.getStudentPage(StudentPage.encodeCursor(afterId), 20);
+    }
+    
+    @Benchmark
+    public Student createStudent(ApplicationState state) {
+        return state.studentService.createStudent(generateStudents(1, state.random).next());
+    }
+    
+    @Benchmark
+    public List<Ticket> searchTickets(ApplicationState state) {
+        return state.ticketService.searchTickets(WORDS[state.random.nextInt(WORDS.length)], 0, 20);
+    }
+    
+    @Benchmark
+    public Object authenticateWithBcrypt(AuthenticationState state) {
+        return state.bcryptProvider.authenticate(state.credentials);
+    }
+    
+    @Benchmark
+    public Object authenticateWithCache(AuthenticationState state) {
+        return state.cachingProvider.authenticate(state.credentials);
+    }
+    
+    static Iterator<Student> generateStudents(int count, Random random) {
+        return new Iterator<Student>() {
+            private int generated;
+            
+            @Override
+            public boolean hasNext() {
+                return generated < count;
+            }
+            
+            @Override
+            public Student next() {
+                generated++;
+                Student student = new Student();
+                student.setFirstName("First" + random.nextInt(100_000));
+                student.setLastName("Last" + random.nextInt(100_000));
+                student.setCourse(COURSES[random.nextInt(COURSES.length)]);
+                student.setCountry(COUNTRIES[random.nextInt(COUNTRIES.length)]);
+                return student;
+            }
+        };
+    }
+    
+    static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(payload);
+        }
+        return compressed.toByteArray();
+    }
+    
+    static Ticket generateTicket(Random random) {
+        Ticket ticket = new Ticket();
+        ticket.setTitle(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        ticket.setDescription(description.toString().trim());
+        return ticket;
+    }
+    
+    // The application classes have no package, so @SpringBootApplication here would register every
+    // @Component and @Configuration found anywhere on the classpath, jars included. Only components
+    // declared in the default package (the application's own) are picked up instead.
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @ComponentScan(useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.CUSTOM, classes = ApplicationComponents.class))
+    static class BenchmarkApplication {
+    }
+    
+    static class ApplicationComponents implements TypeFilter {
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            if (metadataReader.getClassMetadata().getClassName().indexOf('.') >= 0) {
+                return false;
+            }
+            String component = Component.class.getName();
+            return metadataReader.getAnnotationMetadata().hasAnnotation(component)
+                    || metadataReader.getAnnotationMetadata().hasMetaAnnotation(component);
+        }
+    }
+}
\ No newline at end of file
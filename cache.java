@@ -0,0 +1,293 @@
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Bounded LRU + TTL read-through cache in front of StudentRepository.
+// Cached students are detached entities shared between callers and must not be mutated.
+// Loads record the generation they started in and are only cached if their own key (or the whole cache)
+// was not invalidated meanwhile, so a read that raced with a write cannot put the old row back after the
+// write evicted it, while writes to other rows do not stop it from being cached. The list of all students
+// depends on every row, so for that one any invalidation counts.
+@Component
+public class StudentCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    
+    private final LinkedHashMap<Long, Entry<Student>> entries;
+    private Entry<List<Student>> allStudents;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    // Bumped on every invalidation
+    private final AtomicLong generation = new AtomicLong();
+    // Generation of the last invalidateAll, and of each key's last invalidation. A key's stamp is only kept
+    // while a load that started before it is still running; loadsInFlight counts running loads per generation.
+    private long clearedGeneration;
+    private final LinkedHashMap<Long, Long> invalidatedAt = new LinkedHashMap<>();
+    private final TreeMap<Long, Integer> loadsInFlight = new TreeMap<>();
+    
+    public StudentCache(@Value("${students.cache.max-size:10000}") int maxSize,
+                        @Value("${students.cache.ttl:PT5M}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<Long, Entry<Student>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<Student>> eldest) {
+                if (size() > StudentCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    public Optional<Student> get(Long id, Function<Long, Optional<Student>> loader) {
+        long observed;
+        synchronized (this) {
+            Entry<Student> entry = entries.get(id);
+            if (entry != null && !entry.isExpired()) {
+                hits.incrementAndGet();
+                return Optional.of(entry.value);
+            }
+            if (entry != null) {
+                entries.remove(id);
+                evictions.incrementAndGet();
+            }
+            observed = startLoad();
+        }
+        misses.incrementAndGet();
+        try {
+            Optional<Student> loaded = loader.apply(id);
+            loaded.ifPresent(student -> put(student, observed));
+            return loaded;
+        } finally {
+            finishLoad(observed);
+        }
+    }
+    
+    // Cache-only lookup: the cached student, or null when only the database can tell
+    public synchronized Student getIfPresent(Long id) {
+        Entry<Student> entry = entries.get(id);
+        if (entry == null || entry.isExpired()) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+    
+    // Cached ids are answered directly; all misses go to the loader in one call
+    public Map<Long, Student> getAll(Collection<Long> ids, Function<Collection<Long>, List<Student>> loader) {
+        Map<Long, Student> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long observed;
+        synchronized (this) {
+            for (Long id : ids) {
+                Entry<Student> entry = entries.get(id);
+                if (entry != null && !entry.isExpired()) {
+                    hits.incrementAndGet();
+                    found.put(id, entry.value);
+                } else {
+                    if (entry != null) {
+                        entries.remove(id);
+                        evictions.incrementAndGet();
+                    }
+                    misses.incrementAndGet();
+                    missing.add(id);
+                }
+            }
+            observed = startLoad();
+        }
+        try {
+            if (!missing.isEmpty()) {
+                List<Student> loaded = loader.apply(missing);
+                synchronized (this) {
+                    for (Student student : loaded) {
+                        put(student, observed);
+                        found.put(student.getId(), student);
+                    }
+                }
+            }
+        } finally {
+            finishLoad(observed);
+        }
+        return found;
+    }
+    
+    public synchronized Optional<List<Student>> getAll() {
+        if (allStudents != null && !allStudents.isExpired()) {
+            hits.incrementAndGet();
+            return Optional.of(allStudents.value);
+        }
+        misses.incrementAndGet();
+        allStudents = null;
+        return Optional.empty();
+    }
+    
+    public List<Student> getAll(Supplier<List<Student>> loader) {
+        long observed = getGeneration();
+        Optional<List<Student>> cached = getAll();
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        List<Student> loaded = loader.get();
+        putAll(loaded, observed);
+        return loaded;
+    }
+    
+    // Read this before loading from the database and pass it to putAll
+    public long getGeneration() {
+        return generation.get();
+    }
+    
+    private synchronized void put(Student student, long observedGeneration) {
+        Long invalidated = invalidatedAt.get(student.getId());
+        if (clearedGeneration <= observedGeneration && (invalidated == null || invalidated <= observedGeneration)) {
+            entries.put(student.getId(), new Entry<>(student, ttlNanos));
+        }
+    }
+    
+    private synchronized long startLoad() {
+        long observed = generation.get();
+        loadsInFlight.merge(observed, 1, Integer::sum);
+        return observed;
+    }
+    
+    // Drops the stamps no running load can be rejected by any more
+    private synchronized void finishLoad(long observedGeneration) {
+        loadsInFlight.computeIfPresent(observedGeneration, (key, count) -> count == 1 ? null : count - 1);
+        if (loadsInFlight.isEmpty()) {
+            invalidatedAt.clear();
+            return;
+        }
+        long oldest = loadsInFlight.firstKey();
+        Iterator<Long> stamps = invalidatedAt.values().iterator();
+        while (stamps.hasNext() && stamps.next() <= oldest) {
+            stamps.remove();
+        }
+    }
+    
+    // Ignored if anything was invalidated since observedGeneration was read
+    public synchronized void putAll(List<Student> students, long observedGeneration) {
+        if (generation.get() == observedGeneration) {
+            allStudents = new Entry<>(Collections.unmodifiableList(students), ttlNanos);
+        }
+    }
+    
+    // Drops the entry now and again once the surrounding transaction commits, so a read
+    // racing with the write cannot leave a stale row behind
+    public void invalidate(Long id) {
+        evict(id);
+        afterCommit(() -> evict(id));
+    }
+    
+    public void invalidateAll() {
+        clear();
+        afterCommit(this::clear);
+    }
+    
+    public CacheStats getStats() {
+        synchronized (this) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), maxSize);
+        }
+    }
+    
+    private synchronized void evict(Long id) {
+        long stamp = generation.incrementAndGet();
+        if (id != null) {
+            entries.remove(id);
+            if (!loadsInFlight.isEmpty()) {
+                // Re-inserted so the map stays in stamp order for finishLoad
+                invalidatedAt.remove(id);
+                invalidatedAt.put(id, stamp);
+            }
+        }
+        allStudents = null;
+    }
+    
+    private synchronized void clear() {
+        clearedGeneration = generation.incrementAndGet();
+        invalidatedAt.clear();
+        entries.clear();
+        allStudents = null;
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+    
+    private static class Entry<T> {
+        private final T value;
+        private final long expiresAt;
+        
+        Entry(T value, long ttlNanos) {
+            this.value = value;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+    
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final int maxSize;
+        
+        public CacheStats(long hits, long misses, long evictions, int size, int maxSize) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+        
+        public long getHits() {
+            return hits;
+        }
+        
+        public long getMisses() {
+            return misses;
+        }
+        
+        public long getEvictions() {
+            return evictions;
+        }
+        
+        public int getSize() {
+            return size;
+        }
+        
+        public int getMaxSize() {
+            return maxSize;
+        }
+    }
+}
\ No newline at end of file
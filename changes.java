@@ -0,0 +1,99 @@
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.Id;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Table;
+import java.util.List;
+
+// One database row counting committed writes to the students table, shared by every instance. Each writing
+// transaction increments it once, just before it commits, so the row lock is only held for the commit itself
+// and two different committed states of the table never share a value. Backs the collection ETag.
+@Component
+public class StudentChangeCounter {
+    private static final int ROW_ID = 1;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final PlatformTransactionManager transactionManager;
+    
+    public StudentChangeCounter(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+    
+    // Creates the row if no instance has yet; losing that race to another instance is fine
+    @EventListener(ApplicationReadyEvent.class)
+    public void createRow() {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (entityManager.find(Row.class, ROW_ID) == null) {
+                    entityManager.persist(new Row(ROW_ID, 0L));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // created concurrently
+        }
+    }
+    
+    // Call from inside the writing transaction; repeated calls in one transaction count once
+    public void markChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                increment();
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(StudentChangeCounter.this);
+            }
+        });
+    }
+    
+    private void increment() {
+        int updated = entityManager.createQuery("update StudentChanges c set c.counter = c.counter + 1 where c.id = :id")
+                .setParameter("id", ROW_ID)
+                .executeUpdate();
+        if (updated == 0) {
+            // A write that arrived before createRow ran
+            entityManager.persist(new Row(ROW_ID, 1L));
+        }
+    }
+    
+    public long current() {
+        List<Long> counters = entityManager.createQuery("select c.counter from StudentChanges c where c.id = :id", Long.class)
+                .setParameter("id", ROW_ID)
+                .getResultList();
+        return counters.isEmpty() ? 0 : counters.get(0);
+    }
+    
+    @Entity(name = "StudentChanges")
+    @Table(name = "student_changes")
+    public static class Row {
+        @Id
+        private Integer id;
+        private Long counter;
+        
+        protected Row() {
+        }
+        
+        Row(Integer id, Long counter) {
+            this.id = id;
+            this.counter = counter;
+        }
+    }
+}
\ No newline at end of file
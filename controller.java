@@ -1,31 +1,421 @@
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
-
-@RestController
-@RequestMapping("/students")
-public class StudentController {
-    @Autowired
-    private StudentService studentService;
-    
-    @PostMapping
-    public Student createStudent(@RequestBody Student student) {
-        return studentService.createStudent(student);
-    }
-    
-    @PutMapping("/{id}")
-    public Student updateStudent(@PathVariable Long id, @RequestBody Student student) {
-        return studentService.updateStudent(id, student);
-    }
-    
-    @DeleteMapping("/{id}")
-    public void deleteStudent(@PathVariable Long id) {
-        studentService.deleteStudent(id);
-    }
-    
-    @GetMapping
-    public List<Student> getAllStudents() {
-        return studentService.getAllStudents();
-    }
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+@RestController
+@RequestMapping("/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StudentController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+    private static final MediaType SMILE = MediaType.parseMediaType(SMILE_MEDIA_TYPE);
+    private static final String CBOR_FACTORY = "com.fasterxml.jackson.dataformat.cbor.CBORFactory";
+    private static final String SMILE_FACTORY = "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+    
+    // Null when the jackson-dataformat jar is not on the classpath
+    private ObjectMapper cborMapper;
+    private ObjectMapper smileMapper;
+    
+    @Autowired
+    private StudentService studentService;
+    
+    @Autowired
+    private StudentLoader studentLoader;
+    
+    @Autowired
+    private StudentSnapshot studentSnapshot;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+    
+    @Autowired
+    private ChangeEventBus changeEventBus;
+    
+    @Autowired
+    private ObjectProvider<RegistrationLog> registrationLogProvider;
+    
+    // In write-behind mode the registration is only logged here and answered with 202 + tracking id
+    @PostMapping
+    public ResponseEntity<Object> createStudent(@RequestBody Student student) {
+        RegistrationLog registrationLog = registrationLogProvider.getIfAvailable();
+        if (registrationLog == null) {
+            return ResponseEntity.ok(studentService.createStudent(student));
+        }
+        long trackingId = registrationLog.append(student);
+        Map<String, Object> accepted = new LinkedHashMap<>();
+        accepted.put("trackingId", trackingId);
+        accepted.put("status", "/students/registrations/" + trackingId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/students/registrations/" + trackingId))
+                .body(accepted);
+    }
+    
+    @GetMapping("/registrations/{trackingId}")
+    public ResponseEntity<RegistrationLog.RegistrationStatus> getRegistrationStatus(@PathVariable long trackingId) {
+        RegistrationLog registrationLog = registrationLogProvider.getIfAvailable();
+        RegistrationLog.RegistrationStatus status = registrationLog == null ? null : registrationLog.getStatus(trackingId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+    
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkImportResult bulkImportJson(HttpServletRequest request) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+            return studentService.importStudents(StudentReaders.json(parser, objectMapper));
+        }
+    }
+    
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public BulkImportResult bulkImportCsv(HttpServletRequest request) throws IOException {
+        try (BufferedReader reader = request.getReader()) {
+            return studentService.importStudents(StudentReaders.csv(reader));
+        }
+    }
+    
+    // Columnar snapshot for backups, reporting jobs and environment clones (see StudentSnapshot).
+    // On Tomcat's NIO connector the file is handed to sendfile after this method returns.
+    @GetMapping(value = "/export", produces = StudentSnapshot.MEDIA_TYPE)
+    public void exportStudents(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path snapshot = studentSnapshot.export();
+        long size = Files.size(snapshot);
+        response.setContentType(StudentSnapshot.MEDIA_TYPE);
+        response.setContentLengthLong(size);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"students.snap\"");
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", snapshot.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+    
+    @PostMapping(value = "/import", consumes = StudentSnapshot.MEDIA_TYPE)
+    public BulkImportResult importStudents(HttpServletRequest request) throws IOException {
+        // Declared sizes are rejected before reading; chunked uploads are cut off while spooling
+        if (request.getContentLengthLong() > studentSnapshot.getMaxUploadBytes()) {
+            throw new StudentSnapshot.SnapshotTooLargeException(studentSnapshot.getMaxUploadBytes());
+        }
+        return studentSnapshot.importFrom(request.getInputStream());
+    }
+    
+    // Concurrent lookups from all requests are coalesced into one IN query by StudentLoader
+    @GetMapping("/{id}")
+    public ResponseEntity<Student> getStudentById(@PathVariable Long id, WebRequest request) {
+        Optional<Student> student = join(studentLoader.load(id));
+        if (!student.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = etag(student.get());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(student.get());
+    }
+    
+    @PutMapping("/{id}")
+    public ResponseEntity<Student> updateStudent(@PathVariable Long id, @RequestBody Student student,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Student updated = studentService.updateStudent(id, student, VersionETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(etag(updated)).body(updated);
+    }
+    
+    @PatchMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void patchStudent(@PathVariable Long id, @RequestBody Map<String, Object> changes,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        studentService.patchStudent(id, changes, VersionETags.parseIfMatch(ifMatch));
+    }
+    
+    @DeleteMapping("/{id}")
+    public void deleteStudent(@PathVariable Long id,
+                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        studentService.deleteStudent(id, VersionETags.parseIfMatch(ifMatch));
+    }
+    
+    @DeleteMapping(params = "ids")
+    public Map<String, Integer> deleteStudents(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_PAGE_SIZE + " ids per request");
+        }
+        return Collections.singletonMap("deleted", studentService.deleteStudents(new LinkedHashSet<>(ids)));
+    }
+    
+    @GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Student> getStudentsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_PAGE_SIZE + " ids per request");
+        }
+        Map<Long, Student> found = studentService.getStudentsByIds(new LinkedHashSet<>(ids));
+        List<Student> students = new ArrayList<>(found.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Student student = found.get(id);
+            if (student != null) {
+                students.add(student);
+            }
+        }
+        return students;
+    }
+    
+    // Same JSON array as before, but written row by row instead of built as a List.
+    // ?course=&country=&sort=lastName,-firstName narrows and orders it in the database.
+    // The streaming mappings exclude ?ids=, which only has a JSON form; other Accept types get a 406.
+    @GetMapping(params = "!ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAllStudents(@RequestParam(required = false) List<String> fields,
+                                                                @RequestParam(required = false) String course,
+                                                                @RequestParam(required = false) String country,
+                                                                @RequestParam(required = false) List<String> sort,
+                                                                WebRequest request) {
+        StudentFields selected = fields == null ? null : StudentFields.of(fields);
+        Specification<Student> where = filter(course, country, sort);
+        Sort order = StudentSpecifications.sort(sort);
+        String etag = collectionETag(selected);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                streamStudents(selected, where, order, student -> writeStudent(generator, student));
+                generator.writeEndArray();
+            }
+        });
+    }
+    
+    // Binary encodings of the same array for clients that send Accept: application/cbor or application/x-jackson-smile
+    @GetMapping(params = "!ids", produces = {MediaType.APPLICATION_CBOR_VALUE, SMILE_MEDIA_TYPE})
+    public ResponseEntity<StreamingResponseBody> getAllStudentsBinary(@RequestParam(required = false) List<String> fields,
+                                                                      @RequestParam(required = false) String course,
+                                                                      @RequestParam(required = false) String country,
+                                                                      @RequestParam(required = false) List<String> sort,
+                                                                      @RequestHeader(HttpHeaders.ACCEPT) String accept,
+                                                                      WebRequest request) {
+        MediaType contentType = negotiateBinaryType(accept);
+        boolean cbor = contentType.equals(MediaType.APPLICATION_CBOR);
+        StudentFields selected = fields == null ? null : StudentFields.of(fields);
+        Specification<Student> where = filter(course, country, sort);
+        Sort order = StudentSpecifications.sort(sort);
+        String etag = collectionETag(selected, cbor ? ".cbor" : ".smile");
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        JsonFactory factory = cbor ? cborMapper.getFactory() : smileMapper.getFactory();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(contentType)
+                .body(out -> {
+                    try (JsonGenerator generator = factory.createGenerator(out)) {
+                        generator.writeStartArray();
+                        streamStudents(selected, where, order, student -> writeStudent(generator, student));
+                        generator.writeEndArray();
+                    }
+                });
+    }
+    
+    @GetMapping(params = "!ids", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStudentsAsNdjson(@RequestParam(required = false) List<String> fields,
+                                                                        @RequestParam(required = false) String course,
+                                                                        @RequestParam(required = false) String country,
+                                                                        @RequestParam(required = false) List<String> sort,
+                                                                        WebRequest request) {
+        StudentFields selected = fields == null ? null : StudentFields.of(fields);
+        Specification<Student> where = filter(course, country, sort);
+        Sort order = StudentSpecifications.sort(sort);
+        String etag = collectionETag(selected);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                streamStudents(selected, where, order, student -> {
+                    writeStudent(generator, student);
+                    writeNewline(generator);
+                });
+            }
+        });
+    }
+    
+    @GetMapping("/page")
+    public StudentPage getStudentPage(@RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                      @RequestParam(required = false) List<String> fields) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (fields == null) {
+            return studentService.getStudentPage(cursor, pageSize);
+        }
+        return studentService.getStudentPage(cursor, pageSize, StudentFields.of(fields));
+    }
+    
+    // Resume with the Last-Event-ID header (sent automatically by EventSource) or ?since=<event id>
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStudentEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                          @RequestParam(required = false) String since) {
+        return changeEventBus.subscribe("student", since != null ? since : lastEventId);
+    }
+    
+    @GetMapping("/stats")
+    public List<Map<String, Object>> getStudentStats(@RequestParam(defaultValue = "course,country") List<String> groupBy,
+                                                     @RequestParam(defaultValue = "false") boolean fromDatabase) {
+        return studentService.getStudentCounts(groupBy, fromDatabase);
+    }
+    
+    @GetMapping("/cache/stats")
+    public StudentCache.CacheStats getCacheStats() {
+        return studentService.getCacheStats();
+    }
+    
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    // Strong ETag derived from the @Version column
+    private static String etag(Student student) {
+        return VersionETags.of(student.getVersion());
+    }
+    
+    // Each fieldset (and each binary encoding) is a different representation, so it gets its own ETag
+    private String collectionETag(StudentFields fields) {
+        return collectionETag(fields, "");
+    }
+    
+    private String collectionETag(StudentFields fields, String encoding) {
+        String representation = fields == null ? "" : "-" + String.join(".", fields.getFields());
+        return "\"" + studentService.getCollectionETag() + representation + encoding + "\"";
+    }
+    
+    // Picks the binary type the client prefers, by q-value and then specificity, among those whose jar is present
+    private MediaType negotiateBinaryType(String accept) {
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (cborMapper != null && type.isCompatibleWith(MediaType.APPLICATION_CBOR) && !isRefused(MediaType.APPLICATION_CBOR, accepted)) {
+                return MediaType.APPLICATION_CBOR;
+            }
+            if (smileMapper != null && type.isCompatibleWith(SMILE) && !isRefused(SMILE, accepted)) {
+                return SMILE;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "No supported binary encoding is acceptable");
+    }
+    
+    // An explicit q=0 rules a type out even when a wildcard would match it
+    private static boolean isRefused(MediaType candidate, List<MediaType> accepted) {
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0 && type.equalsTypeAndSubtype(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Built from Boot's configured builder, so the binary formats share the JSON mapper's modules and settings
+    @PostConstruct
+    void createBinaryMappers() {
+        cborMapper = binaryMapper(CBOR_FACTORY);
+        smileMapper = binaryMapper(SMILE_FACTORY);
+    }
+    
+    private ObjectMapper binaryMapper(String factoryClassName) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        if (!ClassUtils.isPresent(factoryClassName, classLoader)) {
+            return null;
+        }
+        JsonFactory factory = BeanUtils.instantiateClass(ClassUtils.resolveClassName(factoryClassName, classLoader), JsonFactory.class);
+        return objectMapperBuilder.getIfAvailable(Jackson2ObjectMapperBuilder::json).factory(factory).build();
+    }
+    
+    // Null when no filter or sort was asked for, so the unfiltered read can use the hot store and cache
+    private static Specification<Student> filter(String course, String country, List<String> sort) {
+        return course == null && country == null && sort == null ? null : StudentSpecifications.matching(course, country);
+    }
+    
+    // The filter and sort are built (and validated) before the response starts, so bad parameters are still a 400
+    private void streamStudents(StudentFields fields, Specification<Student> where, Sort order, Consumer<Object> consumer) {
+        if (where == null && fields == null) {
+            studentService.streamAllStudents(consumer::accept);
+        } else if (where == null) {
+            studentService.streamStudentFields(fields, consumer::accept);
+        } else if (fields == null) {
+            studentService.streamStudents(where, order, consumer::accept);
+        } else {
+            studentService.streamStudentFields(fields, where, order, consumer::accept);
+        }
+    }
+    
+    private void writeStudent(JsonGenerator generator, Object student) {
+        try {
+            generator.writeObject(student);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void writeNewline(JsonGenerator generator) {
+        try {
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
\ No newline at end of file
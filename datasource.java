@@ -0,0 +1,160 @@
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Read/write split (students.datasource.routing.enabled=true): @Transactional(readOnly = true) work goes to
+// the replica pool, everything else to the primary. Both are Hikari pools tuned under
+// students.datasource.primary.* / replica.* and show up in the hikaricp_* metrics by pool name.
+//
+// The routing DataSource is wrapped in a LazyConnectionDataSourceProxy: the transaction manager asks for a
+// connection before the read-only flag is bound, so the physical checkout is deferred to the first statement.
+// In virtual-thread mode each pool gets its own DatabaseConcurrencyLimiter semaphore, sized to that pool.
+@Configuration
+@ConditionalOnProperty(name = "students.datasource.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+    private static final Logger log = LoggerFactory.getLogger(RoutingDataSourceConfig.class);
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    
+    enum Route {
+        PRIMARY, REPLICA
+    }
+    
+    @Value("${students.datasource.h2-linked-tables:}")
+    private List<String> h2LinkedTables;
+    
+    @Bean
+    @ConfigurationProperties("students.datasource.primary")
+    public HikariDataSource primaryDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    @Bean
+    @ConfigurationProperties("students.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                 ObjectProvider<VirtualThreadConfig.DatabaseConcurrencyLimiter> concurrencyLimiter) {
+        VirtualThreadConfig.DatabaseConcurrencyLimiter limiter = concurrencyLimiter.getIfAvailable();
+        DataSource primary = limiter == null ? primaryDataSource : limiter.limit(primaryDataSource);
+        DataSource replica = limiter == null ? replicaDataSource : limiter.limit(replicaDataSource);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        TransactionRoutingDataSource routing = new TransactionRoutingDataSource(meterRegistry);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+    
+    // Local testing with two embedded H2 databases: the replica gets read-only linked tables pointing at
+    // the primary's, so it serves the same rows through its own database instance and pool
+    @EventListener(ApplicationStartedEvent.class)
+    public void linkReplicaTables(ApplicationStartedEvent event) throws SQLException {
+        if (h2LinkedTables.isEmpty()) {
+            return;
+        }
+        // Waits for the schema when JPA bootstraps in the background
+        event.getApplicationContext().getBean(EntityManagerFactory.class).getMetamodel();
+        HikariDataSource primary = event.getApplicationContext().getBean("primaryDataSource", HikariDataSource.class);
+        HikariDataSource replica = event.getApplicationContext().getBean("replicaDataSource", HikariDataSource.class);
+        linkTables(primary, replica, h2LinkedTables);
+        log.info("Linked replica tables {} to {}", h2LinkedTables, primary.getJdbcUrl());
+    }
+    
+    // Table names come from configuration and become bare identifiers, so only plain names are accepted;
+    // the URL and credentials are passed as string literals with their quotes escaped
+    static void linkTables(HikariDataSource primary, HikariDataSource replica, List<String> tables) throws SQLException {
+        for (String table : tables) {
+            if (!TABLE_NAME.matcher(table).matches()) {
+                throw new IllegalArgumentException("Not a plain table name: " + table);
+            }
+        }
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            for (String table : tables) {
+                statement.execute("CREATE LINKED TABLE IF NOT EXISTS " + table + "('org.h2.Driver', "
+                        + literal(primary.getJdbcUrl()) + ", " + literal(primary.getUsername()) + ", "
+                        + literal(primary.getPassword()) + ", " + literal(table.toUpperCase(Locale.ROOT)) + ") READONLY");
+            }
+        }
+    }
+    
+    private static String literal(String value) {
+        return "'" + (value == null ? "" : value.replace("'", "''")) + "'";
+    }
+    
+    static class TransactionRoutingDataSource extends AbstractRoutingDataSource {
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private volatile Map<Route, Counter> checkouts;
+        
+        TransactionRoutingDataSource(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+        
+        @Override
+        protected Object determineCurrentLookupKey() {
+            Route route = TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+            Map<Route, Counter> counters = checkouts();
+            if (counters != null) {
+                counters.get(route).increment();
+            }
+            return route;
+        }
+        
+        private Map<Route, Counter> checkouts() {
+            if (checkouts == null) {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry == null) {
+                    return null;
+                }
+                Map<Route, Counter> counters = new HashMap<>();
+                for (Route route : Route.values()) {
+                    counters.put(route, Counter.builder("students.datasource.checkouts")
+                            .description("Physical connection checkouts by routing target")
+                            .tag("target", route.name().toLowerCase())
+                            .register(registry));
+                }
+                checkouts = counters;
+            }
+            return checkouts;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Two embedded H2 databases wired the way application.properties does it locally: writes must land on the
+// primary, read-only transactions must be served by the replica through its linked tables
+class RoutingDataSourceConfigTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = pool("primary", "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1");
+        replica = pool("replica", "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1");
+        replica.setReadOnly(true);
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE students (id BIGINT PRIMARY KEY, first_name VARCHAR(255))");
+        }
+        RoutingDataSourceConfig.linkTables(primary, replica, Collections.singletonList("students"));
+        
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Collections.singletonMap("meterRegistry", registry));
+        DataSource routing = new RoutingDataSourceConfig().dataSource(primary, replica,
+                beans.getBeanProvider(MeterRegistry.class),
+                beans.getBeanProvider(VirtualThreadConfig.DatabaseConcurrencyLimiter.class));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(routing);
+    }
+    
+    @AfterEach
+    void tearDown() throws SQLException {
+        for (HikariDataSource pool : new HikariDataSource[]{replica, primary}) {
+            try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+            pool.close();
+        }
+    }
+    
+    @Test
+    void writesGoToThePrimaryAndReadOnlyTransactionsReadTheReplica() {
+        // The lazy proxy probes the default target once on construction, so count from here
+        double primaryBefore = checkouts("primary");
+        double replicaBefore = checkouts("replica");
+        
+        readWrite.executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO students (id, first_name) VALUES (1, 'Ada')"));
+        assertThat(checkouts("primary")).isEqualTo(primaryBefore + 1);
+        assertThat(checkouts("replica")).isEqualTo(replicaBefore);
+        
+        String firstName = readOnly.execute(status ->
+                jdbcTemplate.queryForObject("SELECT first_name FROM students WHERE id = 1", String.class));
+        assertThat(firstName).isEqualTo("Ada");
+        assertThat(checkouts("replica")).isEqualTo(replicaBefore + 1);
+        assertThat(checkouts("primary")).isEqualTo(primaryBefore + 1);
+    }
+    
+    @Test
+    void replicaLinkedTablesAreReadOnly() {
+        assertThatThrownBy(() -> new JdbcTemplate(replica).update("INSERT INTO students (id, first_name) VALUES (2, 'Grace')"))
+                .isInstanceOf(RuntimeException.class);
+    }
+    
+    @Test
+    void tableNamesThatAreNotPlainIdentifiersAreRejected() {
+        assertThatThrownBy(() -> RoutingDataSourceConfig.linkTables(primary, replica,
+                Collections.singletonList("students; DROP ALL OBJECTS")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Not a plain table name");
+    }
+    
+    private double checkouts(String target) {
+        return registry.counter("students.datasource.checkouts", "target", target).count();
+    }
+    
+    private static HikariDataSource pool(String name, String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
\ No newline at end of file
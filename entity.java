@@ -1,15 +1,103 @@
-import javax.persistence.*;
-
-@Entity
-@Table(name = "students")
-public class Student {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-    private String firstName;
-    private String lastName;
-    private String course;
-    private String country;
-    
-    // Constructors, getters, and setters
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Where;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@DynamicUpdate
+@Where(clause = "deleted_at is null")
+@Table(name = "students", indexes = {
+        @Index(name = "idx_students_course_country_last_name", columnList = "course, country, last_name"),
+        @Index(name = "idx_students_country_last_name", columnList = "country, last_name")
+})
+public class Student {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_seq")
+    @SequenceGenerator(name = "student_seq", sequenceName = "student_seq", allocationSize = 50)
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String course;
+    private String country;
+    
+    @Version
+    private Long version;
+    
+    // Set instead of deleting the row; tombstoned rows are invisible to every query and purged later
+    @JsonIgnore
+    private Instant deletedAt;
+    
+    // Tracking id of the write-behind registration that created the row, so a replayed drain can skip it
+    @JsonIgnore
+    @Column(unique = true)
+    private Long registrationId;
+    
+    public Student() {
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getFirstName() {
+        return firstName;
+    }
+    
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+    
+    public String getLastName() {
+        return lastName;
+    }
+    
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+    
+    public String getCourse() {
+        return course;
+    }
+    
+    public void setCourse(String course) {
+        this.course = course;
+    }
+    
+    public String getCountry() {
+        return country;
+    }
+    
+    public void setCountry(String country) {
+        this.country = country;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+    
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+    
+    public Long getRegistrationId() {
+        return registrationId;
+    }
+    
+    public void setRegistrationId(Long registrationId) {
+        this.registrationId = registrationId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The statuses ApiExceptionHandler gives the exceptions the services throw, checked through a controller
+// that fails the way the real ones do
+class ApiExceptionHandlerTest {
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+            .setControllerAdvice(new ApiExceptionHandler())
+            .build();
+    
+    @Test
+    void malformedBulkImportBodyIsABadRequest() throws Exception {
+        mockMvc.perform(get("/fail/bulk-body"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Expected a JSON array of students"));
+    }
+    
+    @Test
+    void missingStudentIsNotFound() throws Exception {
+        mockMvc.perform(get("/fail/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Student not found with id: 7"));
+    }
+    
+    @Test
+    void unknownFieldIsABadRequest() throws Exception {
+        mockMvc.perform(get("/fail/fields").param("fields", "firstName,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown student field: password"));
+    }
+    
+    @Test
+    void unknownSortIsABadRequest() throws Exception {
+        mockMvc.perform(get("/fail/sort").param("sort", "-salary"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot sort students by: salary"));
+    }
+    
+    @Test
+    void malformedCursorIsABadRequest() throws Exception {
+        mockMvc.perform(get("/fail/cursor").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: not-a-cursor"));
+    }
+    
+    @Test
+    void otherIllegalArgumentExceptionsAreNotClientErrors() {
+        // Left to the container's 500 handling; standalone MockMvc rethrows it instead
+        assertThatThrownBy(() -> mockMvc.perform(get("/fail/bug")))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("Source must not be null");
+    }
+    
+    @Test
+    void versionConflictIsAPreconditionFailure() throws Exception {
+        mockMvc.perform(get("/fail/conflict"))
+                .andExpect(status().isPreconditionFailed());
+    }
+    
+    @Test
+    void unavailableDatabaseIsRetryable() throws Exception {
+        mockMvc.perform(get("/fail/database"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+    
+    @RestController
+    static class FailingController {
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        
+        @GetMapping("/fail/bulk-body")
+        public void bulkBody() throws IOException {
+            StudentReaders.json(objectMapper.getFactory().createParser("{\"firstName\":\"Ada\"}"), objectMapper);
+        }
+        
+        @GetMapping("/fail/missing")
+        public void missing() {
+            throw new NotFoundException("Student not found with id: 7");
+        }
+        
+        @GetMapping("/fail/fields")
+        public void fields(@RequestParam List<String> fields) {
+            StudentFields.of(fields);
+        }
+        
+        @GetMapping("/fail/sort")
+        public void sort(@RequestParam List<String> sort) {
+            StudentSpecifications.sort(sort);
+        }
+        
+        @GetMapping("/fail/cursor")
+        public void cursor(@RequestParam String cursor) {
+            StudentPage.decodeCursor(cursor);
+        }
+        
+        @GetMapping("/fail/bug")
+        public void bug() {
+            throw new IllegalArgumentException("Source must not be null");
+        }
+        
+        @GetMapping("/fail/conflict")
+        public void conflict() {
+            throw new ObjectOptimisticLockingFailureException(Student.class, 7L);
+        }
+        
+        @GetMapping("/fail/database")
+        public void database() {
+            throw new CannotCreateTransactionException("Connection is not available, request timed out");
+        }
+    }
+}
\ No newline at end of file
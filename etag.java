@@ -0,0 +1,30 @@
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Strong ETags for versioned rows: the quoted @Version value. Shared by the servlet and reactive stacks
+// so both answer a malformed or unknown If-Match the same way (412).
+public class VersionETags {
+    
+    private VersionETags() {
+    }
+    
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    // null for a missing header or "*", meaning "any version"
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match must be a single strong ETag");
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown ETag: " + value);
+        }
+    }
+}
\ No newline at end of file
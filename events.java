@@ -0,0 +1,296 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Change events for students and tickets, published after commit into a fixed-size ring buffer and
+// pushed to SSE subscribers. Subscribers only hold a cursor into the shared ring, so a slow consumer
+// costs no extra heap: once the ring laps it, it gets a "reset" event and must reload the collection.
+// Event ids are "<epoch>-<sequence>", the epoch changing on every start; an id from another epoch, or one
+// beyond the head, cannot be resumed from and also gets a reset. The ring holds JSON snapshots, not entities.
+// Delivery threads are shared, so no subscriber may hold one for long: each pass sends at most one batch and
+// requeues, a subscriber more than max-backlog events behind is reset to the head, and one whose send has
+// been blocked past send-timeout-millis (a client that stopped reading) is dropped.
+@Component
+public class ChangeEventBus {
+    private static final int DELIVERY_BATCH_SIZE = 256;
+    
+    private final ChangeEvent[] ring;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private long nextSequence = 1;
+    private final ObjectMapper objectMapper;
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int maxSubscribers;
+    private final long emitterTimeoutMillis;
+    private final long maxBacklog;
+    private final long sendTimeoutNanos;
+    private final ExecutorService deliveryExecutor;
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
+    
+    public ChangeEventBus(@Value("${students.events.buffer-size:4096}") int bufferSize,
+                          @Value("${students.events.max-subscribers:1000}") int maxSubscribers,
+                          @Value("${students.events.delivery-threads:4}") int deliveryThreads,
+                          @Value("${students.events.timeout-millis:1800000}") long emitterTimeoutMillis,
+                          @Value("${students.events.max-backlog:1024}") long maxBacklog,
+                          @Value("${students.events.send-timeout-millis:5000}") long sendTimeoutMillis,
+                          ObjectMapper objectMapper) {
+        this.ring = new ChangeEvent[bufferSize];
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.maxBacklog = maxBacklog;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads);
+        heartbeatExecutor.scheduleAtFixedRate(this::sendHeartbeats, 15, 15, TimeUnit.SECONDS);
+        heartbeatExecutor.scheduleWithFixedDelay(this::dropStalledSubscribers, 1, 1, TimeUnit.SECONDS);
+    }
+    
+    public void publish(String entity, String type, Long id, Object data) {
+        TransactionCallbacks.afterCommit(() -> append(entity, type, id, data));
+    }
+    
+    // Replays everything after lastEventId that is still in the ring, then follows live events
+    public SseEmitter subscribe(String entity, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        long cursor;
+        boolean reset;
+        synchronized (this) {
+            long resumeFrom = lastEventId == null ? nextSequence : resumeSequence(lastEventId);
+            reset = resumeFrom < 0;
+            cursor = reset ? nextSequence : resumeFrom;
+        }
+        Subscriber subscriber = new Subscriber(emitter, entity, cursor, reset);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return emitter;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        deliveryExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+    
+    // The sequence after a Last-Event-ID from this epoch that is not beyond the head, otherwise -1
+    private long resumeSequence(String lastEventId) {
+        String prefix = epoch + "-";
+        if (!lastEventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(prefix.length()));
+            return sequence >= 0 && sequence < nextSequence ? sequence + 1 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+    
+    // Entities are snapshotted as JSON here, so later changes to the same object never leak into the ring
+    private void append(String entity, String type, Long id, Object data) {
+        JsonNode snapshot = data == null ? null : objectMapper.valueToTree(data);
+        synchronized (this) {
+            long sequence = nextSequence++;
+            ring[(int) (sequence % ring.length)] = new ChangeEvent(sequence, entity, type, id, snapshot);
+        }
+        subscribers.forEach(Subscriber::schedule);
+    }
+    
+    // Returns null when events from "from" onwards have already been overwritten
+    private synchronized List<ChangeEvent> readFrom(long from, int max) {
+        long oldest = Math.max(1, nextSequence - ring.length);
+        if (from < oldest) {
+            return null;
+        }
+        if (from >= nextSequence) {
+            return Collections.emptyList();
+        }
+        List<ChangeEvent> events = new ArrayList<>((int) Math.min(max, nextSequence - from));
+        for (long sequence = from; sequence < nextSequence && events.size() < max; sequence++) {
+            events.add(ring[(int) (sequence % ring.length)]);
+        }
+        return events;
+    }
+    
+    private synchronized long head() {
+        return nextSequence;
+    }
+    
+    // Heartbeats are sent by the subscriber's own delivery task, so this thread never blocks on a socket
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatPending = true;
+            subscriber.schedule();
+        }
+    }
+    
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStartedNanos;
+            if (started != 0 && now - started > sendTimeoutNanos) {
+                subscriber.abandon();
+            }
+        }
+    }
+    
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final String entity;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile boolean resetPending;
+        private volatile boolean heartbeatPending;
+        private volatile boolean dropped;
+        private volatile long sendStartedNanos;
+        private volatile Thread sender;
+        
+        Subscriber(SseEmitter emitter, String entity, long cursor, boolean resetPending) {
+            this.emitter = emitter;
+            this.entity = entity;
+            this.cursor = cursor;
+            this.resetPending = resetPending;
+        }
+        
+        // At most one delivery task per subscriber is queued or running at any time
+        void schedule() {
+            if (!dropped && scheduled.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+        
+        // One batch per pass; the task requeues behind the other subscribers if there is more
+        private void drain() {
+            sender = Thread.currentThread();
+            try {
+                if (resetPending || head() - cursor > maxBacklog) {
+                    resetPending = false;
+                    sendReset();
+                }
+                List<ChangeEvent> events = readFrom(cursor, DELIVERY_BATCH_SIZE);
+                if (events == null) {
+                    sendReset();
+                } else {
+                    for (ChangeEvent event : events) {
+                        if (event.getEntity().equals(entity)) {
+                            send(SseEmitter.event().id(eventId(event.getSequence()))
+                                    .name(event.getType()).data(event, MediaType.APPLICATION_JSON));
+                        }
+                        cursor = event.getSequence() + 1;
+                    }
+                }
+                if (heartbeatPending) {
+                    heartbeatPending = false;
+                    send(SseEmitter.event().comment("keep-alive"));
+                }
+                if (dropped) {
+                    emitter.completeWithError(new IOException("Subscriber stopped reading events"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                dropped = true;
+                emitter.completeWithError(e);
+            } finally {
+                sender = null;
+                // An interrupt from abandon() that arrived after the send finished must not leak to the next task
+                Thread.interrupted();
+                scheduled.set(false);
+            }
+            if (cursor < head() || heartbeatPending) {
+                schedule();
+            }
+        }
+        
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStartedNanos = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendStartedNanos = 0;
+            }
+        }
+        
+        // Moves the cursor to the head; the client reloads the collection and follows from there
+        private void sendReset() throws IOException {
+            long head = head();
+            send(SseEmitter.event().id(eventId(head - 1)).name("reset")
+                    .data("Missed events; reload the collection"));
+            cursor = head;
+        }
+        
+        // Called by the watchdog: the blocked send is interrupted (the emitter's own methods are locked by it),
+        // and the delivery task completes the emitter once the send returns or fails
+        void abandon() {
+            dropped = true;
+            subscribers.remove(this);
+            Thread thread = sender;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+    
+    public static class ChangeEvent {
+        private final long sequence;
+        private final String entity;
+        private final String type;
+        private final Long id;
+        private final JsonNode data;
+        
+        public ChangeEvent(long sequence, String entity, String type, Long id, JsonNode data) {
+            this.sequence = sequence;
+            this.entity = entity;
+            this.type = type;
+            this.id = id;
+            this.data = data;
+        }
+        
+        public long getSequence() {
+            return sequence;
+        }
+        
+        public String getEntity() {
+            return entity;
+        }
+        
+        public String getType() {
+            return type;
+        }
+        
+        public Long getId() {
+            return id;
+        }
+        
+        public JsonNode getData() {
+            return data;
+        }
+    }
+}
\ No newline at end of file
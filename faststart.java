@@ -0,0 +1,20 @@
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+// The fast-start profile turns off Hibernate's JDBC metadata lookup, which is how it would otherwise
+// detect the dialect. Without a configured dialect the instance refuses to start instead of guessing.
+@Configuration
+@Profile("fast-start")
+@Lazy(false)
+public class FastStartProfileCheck {
+    
+    public FastStartProfileCheck(Environment environment) {
+        if (!environment.containsProperty("spring.jpa.database-platform")
+                && !environment.containsProperty("spring.jpa.properties.hibernate.dialect")) {
+            throw new IllegalStateException("The fast-start profile needs spring.jpa.database-platform set to the "
+                    + "Hibernate dialect of the database, e.g. org.hibernate.dialect.PostgreSQLDialect");
+        }
+    }
+}
\ No newline at end of file
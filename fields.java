@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sparse fieldsets (?fields=firstName,course): only the requested columns are selected, as scalars,
+// so Hibernate never hydrates or snapshots a Student for these reads
+public class StudentFields {
+    public static final List<String> ALL = Arrays.asList("id", "firstName", "lastName", "course", "country", "version");
+    
+    private final List<String> fields;
+    
+    private StudentFields(List<String> fields) {
+        this.fields = fields;
+    }
+    
+    public static StudentFields of(List<String> requested) {
+        for (String field : requested) {
+            if (!ALL.contains(field)) {
+                throw new BadRequestException("Unknown student field: " + field);
+            }
+        }
+        return new StudentFields(requested);
+    }
+    
+    public List<String> getFields() {
+        return fields;
+    }
+    
+    // The id is always selected first because keyset pagination needs it, even if it is not returned
+    public String selectClause() {
+        StringBuilder select = new StringBuilder("select s.id");
+        for (String field : fields) {
+            select.append(", s.").append(field);
+        }
+        return select.toString();
+    }
+    
+    // For reads that already have the entity, e.g. filtered queries
+    public Map<String, Object> toMap(Student student) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            values.put(field, valueOf(student, field));
+        }
+        return values;
+    }
+    
+    private static Object valueOf(Student student, String field) {
+        switch (field) {
+            case "id":
+                return student.getId();
+            case "firstName":
+                return student.getFirstName();
+            case "lastName":
+                return student.getLastName();
+            case "course":
+                return student.getCourse();
+            case "country":
+                return student.getCountry();
+            default:
+                return student.getVersion();
+        }
+    }
+    
+    public Map<String, Object> toMap(Object[] row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(fields.get(i), row[i + 1]);
+        }
+        return values;
+    }
+}
\ No newline at end of file
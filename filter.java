@@ -0,0 +1,41 @@
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Authenticates "Authorization: Bearer <token>" requests issued by TokenService; anything else falls through to HTTP Basic
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+    
+    private final TokenService tokenService;
+    
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isBearerRequest(request)) {
+            String header = request.getHeader("Authorization");
+            Authentication authentication = tokenService.verifyToken(header.substring(BEARER_PREFIX.length()).trim());
+            if (authentication == null) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+                return;
+            }
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    // Browsers never attach a bearer token on their own, so these requests need no CSRF token
+    public static boolean isBearerRequest(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        return header != null && header.startsWith(BEARER_PREFIX);
+    }
+}
\ No newline at end of file
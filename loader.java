@@ -0,0 +1,122 @@
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// DataLoader-style coalescer for single-student lookups. Ids requested within one window
+// (across all requests) are fetched with a single StudentService.getStudentsByIds call, and
+// concurrent requests for the same id share one in-flight future. Cache and hot-store hits are answered
+// immediately; the single scheduler thread only times windows, batches run on a small bounded pool.
+@Component
+public class StudentLoader {
+    
+    @Autowired
+    private StudentService studentService;
+    
+    @Value("${students.loader.window-ms:2}")
+    private long windowMillis;
+    
+    @Value("${students.loader.max-batch-size:200}")
+    private int maxBatchSize;
+    
+    @Value("${students.loader.threads:4}")
+    private int threads;
+    
+    private final Map<Long, CompletableFuture<Optional<Student>>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private ExecutorService batches;
+    
+    private List<Long> pending = new ArrayList<>();
+    
+    // When the queue is full the caller runs the batch itself, which slows new lookups down instead of piling them up
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        batches = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "student-loader-batch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    public CompletableFuture<Optional<Student>> load(Long id) {
+        if (windowMillis <= 0 || studentService.isHotStoreReady()) {
+            return CompletableFuture.completedFuture(studentService.getStudentById(id));
+        }
+        Optional<Student> cached = studentService.getCachedStudent(id);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Optional<Student>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<Student>> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null) {
+            return existing;
+        }
+        boolean schedule;
+        boolean full;
+        synchronized (this) {
+            pending.add(id);
+            schedule = pending.size() == 1;
+            full = pending.size() >= maxBatchSize;
+        }
+        if (full) {
+            batches.execute(this::dispatch);
+        } else if (schedule) {
+            scheduler.schedule(() -> batches.execute(this::dispatch), windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return created;
+    }
+    
+    private void dispatch() {
+        List<Long> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        try {
+            Map<Long, Student> found = studentService.getStudentsByIds(batch);
+            for (Long id : batch) {
+                complete(id).complete(Optional.ofNullable(found.get(id)));
+            }
+        } catch (RuntimeException e) {
+            for (Long id : batch) {
+                complete(id).completeExceptionally(e);
+            }
+        }
+    }
+    
+    // Removed before completion so a lookup arriving afterwards starts a fresh read
+    private CompletableFuture<Optional<Student>> complete(Long id) {
+        return inFlight.remove(id);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        batches.shutdown();
+    }
+}
\ No newline at end of file
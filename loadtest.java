@@ -0,0 +1,228 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Closed-loop HTTP load harness: N concurrent clients replay a weighted read/write/search mix for a fixed
+// time and report throughput, latency percentiles and a latency histogram per operation. Run it with the
+// same arguments before and after a change (or against both thread modes) and compare the reports.
+// Writes need a CSRF token when sent with Basic credentials, so a mix containing "write" first exchanges
+// the credentials for a bearer token at /auth/token (start the server with security.token.enabled=true).
+//
+//   java loadtest.java url=http://localhost:8080 user=admin:adminPass concurrency=400 duration=60 mix=page:60,write:10,search:30
+public class LoadTest {
+    private static final String[] WORDS = {"login", "error", "timeout", "payment", "network", "printer",
+            "password", "crash", "slow", "report", "export", "email", "upload", "database", "access"};
+    private static final String[] COURSES = {"B.Tech", "B.Arch", "B.Com", "B.Sc", "M.Tech"};
+    private static final String[] COUNTRIES = {"India", "Canada", "New Zealand", "USA", "Germany"};
+    
+    enum Operation {
+        PAGE, LIST, WRITE, SEARCH
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("url", "http://localhost:8080");
+        options.put("user", "admin:adminPass");
+        options.put("concurrency", "400");
+        options.put("duration", "60");
+        options.put("mix", "page:60,write:10,search:30");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        String baseUrl = options.get("url");
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        int durationSeconds = Integer.parseInt(options.get("duration"));
+        int warmupSeconds = Math.max(1, durationSeconds / 6);
+        Operation[] schedule = parseMix(options.get("mix"));
+        
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String authorization = "Basic " + Base64.getEncoder().encodeToString(options.get("user").getBytes(StandardCharsets.UTF_8));
+        if (Arrays.asList(schedule).contains(Operation.WRITE)) {
+            authorization = "Bearer " + fetchToken(client, baseUrl, authorization);
+        }
+        String credentials = authorization;
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        Map<Operation, List<LatencyRecorder>> recorders = new LinkedHashMap<>();
+        Map<Operation, AtomicLongArray> statusCounts = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new ArrayList<>());
+            statusCounts.put(operation, new AtomicLongArray(6));
+        }
+        
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Map<Operation, LatencyRecorder> local = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                local.put(operation, recorder);
+                synchronized (recorders) {
+                    recorders.get(operation).add(recorder);
+                }
+            }
+            clients.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    Operation operation = schedule[random.nextInt(schedule.length)];
+                    HttpRequest request = buildRequest(operation, baseUrl, credentials, random);
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = 0;
+                    }
+                    if (start < warmupEnd) {
+                        continue;
+                    }
+                    statusCounts.get(operation).incrementAndGet(status / 100);
+                    if (status >= 200 && status < 400) {
+                        local.get(operation).record(System.nanoTime() - start);
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(warmupSeconds + durationSeconds + 60L, TimeUnit.SECONDS);
+        
+        System.out.printf("url=%s concurrency=%d duration=%ds mix=%s%n", baseUrl, concurrency, durationSeconds, options.get("mix"));
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            long[] latencies = LatencyRecorder.merge(recorders.get(operation));
+            AtomicLongArray statuses = statusCounts.get(operation);
+            long attempts = 0;
+            for (int i = 0; i < statuses.length(); i++) {
+                attempts += statuses.get(i);
+            }
+            if (attempts == 0) {
+                continue;
+            }
+            total += latencies.length;
+            Arrays.sort(latencies);
+            System.out.printf("%n%s: ok=%d failed=%d (io=%d 4xx=%d 5xx=%d) throughput=%.1f req/s%n",
+                    operation, latencies.length, attempts - latencies.length, statuses.get(0), statuses.get(4),
+                    statuses.get(5), latencies.length / (double) durationSeconds);
+            System.out.printf("  latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+            printHistogram(latencies);
+        }
+        System.out.printf("%ntotal throughput=%.1f req/s%n", total / (double) durationSeconds);
+    }
+    
+    static HttpRequest buildRequest(Operation operation, String baseUrl, String authorization, ThreadLocalRandom random) {
+        HttpRequest.Builder builder;
+        switch (operation) {
+            case PAGE:
+                builder = HttpRequest.newBuilder(URI.create(baseUrl + "/students/page?size=20"));
+                break;
+            case LIST:
+                builder = HttpRequest.newBuilder(URI.create(baseUrl + "/students"));
+                break;
+            case WRITE:
+                String body = String.format("{\"firstName\":\"First%d\",\"lastName\":\"Last%d\",\"course\":\"%s\",\"country\":\"%s\"}",
+                        random.nextInt(100_000), random.nextInt(100_000),
+                        COURSES[random.nextInt(COURSES.length)], COUNTRIES[random.nextInt(COUNTRIES.length)]);
+                builder = HttpRequest.newBuilder(URI.create(baseUrl + "/students"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body));
+                break;
+            default:
+                builder = HttpRequest.newBuilder(URI.create(baseUrl + "/tickets/search?keyword=" + WORDS[random.nextInt(WORDS.length)]));
+                break;
+        }
+        return builder.header("Authorization", authorization).timeout(Duration.ofSeconds(30)).build();
+    }
+    
+    // The token lives for security.token.ttl; keep runs shorter than that
+    static String fetchToken(HttpClient client, String baseUrl, String basicAuthorization) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/token"))
+                .header("Authorization", basicAuthorization)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher token = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(response.body());
+        if (response.statusCode() != 200 || !token.find()) {
+            throw new IllegalStateException("POST /auth/token returned " + response.statusCode()
+                    + "; write mixes need the server started with security.token.enabled=true");
+        }
+        return token.group(1);
+    }
+    
+    static Operation[] parseMix(String mix) {
+        List<Operation> schedule = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] weight = part.split(":");
+            Operation operation = Operation.valueOf(weight[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(weight[1].trim()); i++) {
+                schedule.add(operation);
+            }
+        }
+        return schedule.toArray(new Operation[0]);
+    }
+    
+    static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+    
+    // Power-of-two buckets in microseconds
+    static void printHistogram(long[] latencies) {
+        int[] buckets = new int[40];
+        for (long nanos : latencies) {
+            long micros = Math.max(1, nanos / 1000);
+            buckets[63 - Long.numberOfLeadingZeros(micros)]++;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0) {
+                System.out.printf("  < %8d us: %d%n", 1L << (i + 1), buckets[i]);
+            }
+        }
+    }
+    
+    static class LatencyRecorder {
+        private long[] samples = new long[1024];
+        private int count;
+        
+        void record(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+        
+        static long[] merge(List<LatencyRecorder> recorders) {
+            int total = 0;
+            for (LatencyRecorder recorder : recorders) {
+                total += recorder.count;
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (LatencyRecorder recorder : recorders) {
+                System.arraycopy(recorder.samples, 0, merged, offset, recorder.count);
+                offset += recorder.count;
+            }
+            return merged;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/auth")
+@ConditionalOnProperty(name = "security.token.enabled", havingValue = "true")
+public class TokenController {
+    @Autowired
+    private TokenService tokenService;
+    
+    // Authenticate once with HTTP Basic, then send the token as "Authorization: Bearer <token>".
+    // Bearer tokens and sessions cannot mint new tokens, so a token never outlives its TTL.
+    @PostMapping("/token")
+    public Map<String, Object> issueToken(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                          Authentication authentication) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Basic ", 0, 6)
+                || !(authentication.getPrincipal() instanceof UserDetails)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Tokens are only issued to HTTP Basic logins");
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("token", tokenService.issueToken(authentication.getName()));
+        response.put("tokenType", "Bearer");
+        response.put("expiresIn", tokenService.getTtl().getSeconds());
+        return response;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.domain.Slice;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Timers for the service and repository layers, SQL statement counts per request (with an N+1 warning),
+// and percentile histograms for the HTTP timers. HTTP, Hikari pool, Hibernate statistics and JVM metrics
+// come from Spring Boot Actuator; everything is scraped at /actuator/prometheus.
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private static final Logger log = LoggerFactory.getLogger(MetricsConfig.class);
+    
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    
+    @Value("${students.metrics.n-plus-one-threshold:20}")
+    private int nPlusOneThreshold;
+    
+    public MetricsConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Bean
+    public MeterFilter latencyHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getName().equals("http.server.requests") || id.getName().startsWith("students.")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .percentiles(0.5, 0.95, 0.99)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+    
+    @Bean
+    public static LayerTimingPostProcessor layerTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LayerTimingPostProcessor(meterRegistry);
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session_factory.statement_inspector", new StatementCounter());
+            properties.put("hibernate.generate_statistics", "true");
+        };
+    }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                StatementCounter.reset();
+                return true;
+            }
+            
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                if (!(handler instanceof HandlerMethod)) {
+                    return;
+                }
+                HandlerMethod method = (HandlerMethod) handler;
+                String endpoint = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+                int statements = StatementCounter.reset();
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry == null) {
+                    return;
+                }
+                DistributionSummary.builder("students.sql.statements")
+                        .description("SQL statements issued while handling one request")
+                        .tag("endpoint", endpoint)
+                        .register(registry)
+                        .record(statements);
+                if (statements > nPlusOneThreshold) {
+                    Counter.builder("students.sql.n_plus_one_suspects")
+                            .tag("endpoint", endpoint)
+                            .register(registry)
+                            .increment();
+                    log.warn("{} issued {} SQL statements for {} {} - possible N+1 query",
+                            endpoint, statements, request.getMethod(), request.getRequestURI());
+                }
+            }
+        });
+    }
+    
+    // Counts statements prepared on the current thread; registered as Hibernate's statement inspector
+    public static class StatementCounter implements StatementInspector {
+        private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+        
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+        
+        static int reset() {
+            int[] count = COUNT.get();
+            int statements = count[0];
+            count[0] = 0;
+            return statements;
+        }
+    }
+    
+    // Adds a timer to every public method of the services and repositories. Repository timers also
+    // record how many rows each call returned.
+    public static class LayerTimingPostProcessor implements BeanPostProcessor, Ordered {
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        
+        public LayerTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+        
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof Advised)) {
+                return bean;
+            }
+            if (bean instanceof StudentService || bean instanceof TicketService) {
+                ((Advised) bean).addAdvice(timing("students.service", bean, false));
+            } else if (bean instanceof StudentRepository || bean instanceof TicketRepository) {
+                ((Advised) bean).addAdvice(timing("students.repository", bean, true));
+            }
+            return bean;
+        }
+        
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+        
+        private MethodInterceptor timing(String metric, Object bean, boolean countRows) {
+            String layer = bean instanceof StudentService || bean instanceof StudentRepository ? "student" : "ticket";
+            return invocation -> {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry == null) {
+                    return invocation.proceed();
+                }
+                long start = System.nanoTime();
+                String outcome = "success";
+                try {
+                    Object result = invocation.proceed();
+                    if (countRows) {
+                        recordRows(registry, metric, layer, invocation, result);
+                    }
+                    return result;
+                } catch (Throwable e) {
+                    outcome = e.getClass().getSimpleName();
+                    throw e;
+                } finally {
+                    Timer.builder(metric)
+                            .tag("layer", layer)
+                            .tag("method", invocation.getMethod().getName())
+                            .tag("outcome", outcome)
+                            .register(registry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+        }
+        
+        private static void recordRows(MeterRegistry registry, String metric, String layer, MethodInvocation invocation, Object result) {
+            long rows;
+            if (result instanceof Collection) {
+                rows = ((Collection<?>) result).size();
+            } else if (result instanceof Slice) {
+                rows = ((Slice<?>) result).getNumberOfElements();
+            } else if (result instanceof Optional) {
+                rows = ((Optional<?>) result).isPresent() ? 1 : 0;
+            } else if (result instanceof Iterable || result instanceof Map) {
+                return;
+            } else if (result instanceof Number && invocation.getMethod().getName().startsWith("count")) {
+                return;
+            } else if (result instanceof Number) {
+                rows = ((Number) result).longValue();
+            } else {
+                return;
+            }
+            DistributionSummary.builder(metric + ".rows")
+                    .description("Rows returned or affected per repository call")
+                    .tag("layer", layer)
+                    .tag("method", invocation.getMethod().getName())
+                    .register(registry)
+                    .record(rows);
+        }
+    }
+}
\ No newline at end of file
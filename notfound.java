@@ -0,0 +1,7 @@
+// Thrown when the addressed student or ticket does not exist; answered with 404 by ApiExceptionHandler.
+public class NotFoundException extends RuntimeException {
+    
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+public class StudentPage {
+    private final List<?> students;
+    private final String nextCursor;
+    
+    // Holds StudentView projections, or field maps when a sparse fieldset was requested
+    public StudentPage(List<?> students, String nextCursor) {
+        this.students = students;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<?> getStudents() {
+        return students;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    // Cursor tokens are opaque to clients; they only carry the last id that was returned
+    public static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+// Builds a single "update ... set <only the given fields> where id = :id" statement from a PATCH body,
+// so neither a prior SELECT nor a full-row merge is needed. Soft-deleted rows are never touched.
+public class PartialUpdate {
+    private final String entityName;
+    private final Set<String> updatableFields;
+    private final Set<String> requiredFields;
+    private final boolean versioned;
+    
+    public PartialUpdate(String entityName, Set<String> updatableFields) {
+        this(entityName, updatableFields, Collections.emptySet(), false);
+    }
+    
+    // Versioned entities get their @Version column bumped in the same statement. Required fields may
+    // be left out of a PATCH but not set to null or blank, the same rule full writes are validated by.
+    public PartialUpdate(String entityName, Set<String> updatableFields, Set<String> requiredFields, boolean versioned) {
+        this.entityName = entityName;
+        this.updatableFields = updatableFields;
+        this.requiredFields = requiredFields;
+        this.versioned = versioned;
+    }
+    
+    public int execute(EntityManager entityManager, Long id, Map<String, Object> changes) {
+        return execute(entityManager, id, changes, null);
+    }
+    
+    // Returns the number of rows updated; 0 means there is no row with that id or, when expectedVersion
+    // is given (versioned entities only), that its version no longer matches
+    public int execute(EntityManager entityManager, Long id, Map<String, Object> changes, Long expectedVersion) {
+        if (changes.isEmpty()) {
+            throw new BadRequestException("No fields to update");
+        }
+        if (expectedVersion != null && !versioned) {
+            throw new IllegalStateException(entityName + " has no version to match");
+        }
+        StringBuilder jpql = new StringBuilder("update ").append(entityName).append(" e set ");
+        boolean first = true;
+        for (String field : changes.keySet()) {
+            if (!updatableFields.contains(field)) {
+                throw new BadRequestException("Field cannot be updated: " + field);
+            }
+            if (!first) {
+                jpql.append(", ");
+            }
+            jpql.append("e.").append(field).append(" = :").append(field);
+            first = false;
+        }
+        if (versioned) {
+            jpql.append(", e.version = e.version + 1");
+        }
+        jpql.append(" where e.id = :id and e.deletedAt is null");
+        if (expectedVersion != null) {
+            jpql.append(" and e.version = :expectedVersion");
+        }
+        Query query = entityManager.createQuery(jpql.toString());
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            Object value = change.getValue();
+            if (value != null && !(value instanceof String)) {
+                throw new BadRequestException("Field " + change.getKey() + " must be a string");
+            }
+            if (requiredFields.contains(change.getKey()) && (value == null || ((String) value).trim().isEmpty())) {
+                throw new BadRequestException(change.getKey() + " is required");
+            }
+            query.setParameter(change.getKey(), value);
+        }
+        query.setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("expectedVersion", expectedVersion);
+        }
+        return query.executeUpdate();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs after authentication and before any controller. Two checks, in order:
+//  1. admission control: while more than queue-threshold threads wait for a pooled connection,
+//     requests from low-priority roles are turned away with 503 instead of joining that queue;
+//  2. per-principal token buckets, chosen by the first rule matching the path, method and role (429).
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final int MAX_BUCKETS = 100_000;
+    
+    private final RateLimitProperties properties;
+    private final List<DataSource> dataSources;
+    private final VirtualThreadConfig.DatabaseConcurrencyLimiter concurrencyLimiter;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    
+    // Every Hikari pool among the data sources counts, e.g. both primary and replica when reads are routed.
+    // concurrencyLimiter is null unless virtual-thread mode is on.
+    public RateLimitFilter(RateLimitProperties properties, List<DataSource> dataSources,
+                           VirtualThreadConfig.DatabaseConcurrencyLimiter concurrencyLimiter) {
+        this.properties = properties;
+        this.dataSources = dataSources;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        List<String> roles = new ArrayList<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        
+        if (isLowPriority(roles) && connectionQueueDepth() > properties.getQueueThreshold()) {
+            reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1, "Server is busy, retry later");
+            return;
+        }
+        
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (int i = 0; i < properties.getRules().size(); i++) {
+            RateLimitProperties.Rule rule = properties.getRules().get(i);
+            if (!rule.matches(pathMatcher, path, request.getMethod(), roles)) {
+                continue;
+            }
+            TokenBucket bucket = bucket(i + ":" + authentication.getName(), rule);
+            long waitNanos = bucket.tryAcquire(System.nanoTime());
+            if (waitNanos > 0) {
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+                reject(response, 429, retryAfter, "Rate limit exceeded");
+                return;
+            }
+            break;
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    private TokenBucket bucket(String key, RateLimitProperties.Rule rule) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= MAX_BUCKETS) {
+            // Idle buckets are full again, so dropping them loses nothing
+            long now = System.nanoTime();
+            buckets.values().removeIf(candidate -> candidate.isIdle(now));
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(rule.getPermitsPerSecond(), rule.getBurst()));
+    }
+    
+    private boolean isLowPriority(List<String> roles) {
+        for (String role : roles) {
+            if (properties.getHighPriorityRoles().contains(role)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int connectionQueueDepth() {
+        // In virtual-thread mode requests queue on the limiters' semaphores rather than in the pools. The limiter
+        // counts every pool it wraps, also the per-pool wrappers behind the routing DataSource, which are not beans.
+        int waiting = concurrencyLimiter == null ? 0 : concurrencyLimiter.queueLength();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof VirtualThreadConfig.LimitedDataSource) {
+                dataSource = ((VirtualThreadConfig.LimitedDataSource) dataSource).getTargetDataSource();
+            }
+            if (dataSource instanceof HikariDataSource) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                waiting += pool == null ? 0 : pool.getThreadsAwaitingConnection();
+            }
+        }
+        return waiting;
+    }
+    
+    private static void reject(HttpServletResponse response, int status, long retryAfterSeconds, String message) throws IOException {
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.sendError(status, message);
+    }
+    
+    // Lock-free token bucket in GCRA form: a single CAS'd "theoretical arrival time" per bucket
+    static class TokenBucket {
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        
+        TokenBucket(double permitsPerSecond, int burst) {
+            this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+            this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+        }
+        
+        // Returns 0 when a token was taken, otherwise how long until one becomes available
+        long tryAcquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long wait = arrival - now - burstToleranceNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+        
+        boolean isIdle(long now) {
+            long current = theoreticalArrival.get();
+            return current == Long.MIN_VALUE || current - now < 0;
+        }
+    }
+    
+    @ConfigurationProperties(prefix = "security.rate-limit")
+    public static class RateLimitProperties {
+        // Opt-in, so existing deployments keep their current behaviour until they configure limits
+        private boolean enabled = false;
+        private int queueThreshold = 5;
+        private List<String> highPriorityRoles = new ArrayList<>(Collections.singletonList("ROLE_ADMIN"));
+        private List<Rule> rules = defaultRules();
+        
+        private static List<Rule> defaultRules() {
+            List<Rule> rules = new ArrayList<>();
+            rules.add(new Rule("/**", null, "ROLE_ADMIN", 50, 100));
+            rules.add(new Rule("/**", null, null, 10, 20));
+            return rules;
+        }
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getQueueThreshold() {
+            return queueThreshold;
+        }
+        
+        public void setQueueThreshold(int queueThreshold) {
+            this.queueThreshold = queueThreshold;
+        }
+        
+        public List<String> getHighPriorityRoles() {
+            return highPriorityRoles;
+        }
+        
+        public void setHighPriorityRoles(List<String> highPriorityRoles) {
+            this.highPriorityRoles = highPriorityRoles;
+        }
+        
+        public List<Rule> getRules() {
+            return rules;
+        }
+        
+        public void setRules(List<Rule> rules) {
+            this.rules = rules;
+        }
+        
+        // e.g. security.rate-limit.rules[0].path=/tickets/search, .method=GET, .role=ROLE_USER, .permits-per-second=5, .burst=10
+        public static class Rule {
+            private String path = "/**";
+            private String method;
+            private String role;
+            private double permitsPerSecond = 10;
+            private int burst = 20;
+            
+            public Rule() {
+            }
+            
+            public Rule(String path, String method, String role, double permitsPerSecond, int burst) {
+                this.path = path;
+                this.method = method;
+                this.role = role;
+                this.permitsPerSecond = permitsPerSecond;
+                this.burst = burst;
+            }
+            
+            boolean matches(AntPathMatcher matcher, String requestPath, String requestMethod, List<String> roles) {
+                return matcher.match(path, requestPath)
+                        && (method == null || method.equalsIgnoreCase(requestMethod))
+                        && (role == null || roles.contains(role));
+            }
+            
+            public String getPath() {
+                return path;
+            }
+            
+            public void setPath(String path) {
+                this.path = path;
+            }
+            
+            public String getMethod() {
+                return method;
+            }
+            
+            public void setMethod(String method) {
+                this.method = method;
+            }
+            
+            public String getRole() {
+                return role;
+            }
+            
+            public void setRole(String role) {
+                this.role = role;
+            }
+            
+            public double getPermitsPerSecond() {
+                return permitsPerSecond;
+            }
+            
+            public void setPermitsPerSecond(double permitsPerSecond) {
+                this.permitsPerSecond = permitsPerSecond;
+            }
+            
+            public int getBurst() {
+                return burst;
+            }
+            
+            public void setBurst(int burst) {
+                this.burst = burst;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+// R2DBC access to the same students table the JPA stack uses. Ids come from student_seq: each
+// value is the top of a 50-id block under Hibernate's pooled optimizer, so taking it as-is never
+// collides with ids the JPA side hands out. Every write that changes a row also increments the shared
+// student_changes counter (see StudentChangeCounter). Without a reactive transaction that happens right after
+// the write commits, so a reader may briefly pair the new rows with the old counter, never the reverse.
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentRepository {
+    private static final String COLUMNS = "id, first_name, last_name, course, country, version";
+    
+    private final DatabaseClient databaseClient;
+    private final String nextIdSql;
+    private final boolean softDelete;
+    
+    public ReactiveStudentRepository(DatabaseClient databaseClient,
+                                     @Value("${students.reactive.next-id-sql:SELECT NEXT VALUE FOR student_seq}") String nextIdSql,
+                                     @Value("${soft-delete.enabled:false}") boolean softDelete) {
+        this.databaseClient = databaseClient;
+        this.nextIdSql = nextIdSql;
+        this.softDelete = softDelete;
+    }
+    
+    // Rows are emitted as the driver reads them, honoring subscriber demand
+    public Flux<Student> findAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM students WHERE deleted_at IS NULL ORDER BY id")
+                .map((row, metadata) -> toStudent(row))
+                .all();
+    }
+    
+    public Mono<Student> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM students WHERE id = :id AND deleted_at IS NULL")
+                .bind("id", id)
+                .map((row, metadata) -> toStudent(row))
+                .one();
+    }
+    
+    public Mono<Student> insert(Student student) {
+        return databaseClient.sql(nextIdSql)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> {
+                    student.setId(id);
+                    student.setVersion(0L);
+                    DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(
+                            "INSERT INTO students (" + COLUMNS + ") VALUES (:id, :firstName, :lastName, :course, :country, :version)")
+                            .bind("id", id)
+                            .bind("version", 0L);
+                    return bindFields(insert, student).fetch().rowsUpdated().flatMap(this::countChange).thenReturn(student);
+                });
+    }
+    
+    // Returns the number of rows updated; 0 means the row is gone or its version no longer matches
+    public Mono<Integer> update(Student student, long expectedVersion) {
+        DatabaseClient.GenericExecuteSpec update = databaseClient.sql(
+                "UPDATE students SET first_name = :firstName, last_name = :lastName, course = :course, "
+                        + "country = :country, version = version + 1 WHERE id = :id AND version = :version AND deleted_at IS NULL")
+                .bind("id", student.getId())
+                .bind("version", expectedVersion);
+        return bindFields(update, student).fetch().rowsUpdated().flatMap(this::countChange);
+    }
+    
+    // Tombstones the row like the JPA side does, unless soft-delete is off. With an expectedVersion only
+    // that version is removed; 0 rows then means it changed (or is gone).
+    public Mono<Integer> deleteById(Long id, Long expectedVersion) {
+        String versionCondition = expectedVersion == null ? "" : " AND version = :version";
+        DatabaseClient.GenericExecuteSpec delete = softDelete
+                ? databaseClient.sql("UPDATE students SET deleted_at = :deletedAt, version = version + 1 WHERE id = :id AND deleted_at IS NULL" + versionCondition)
+                        .bind("deletedAt", Instant.now())
+                : databaseClient.sql("DELETE FROM students WHERE id = :id" + versionCondition);
+        delete = delete.bind("id", id);
+        if (expectedVersion != null) {
+            delete = delete.bind("version", expectedVersion);
+        }
+        return delete.fetch().rowsUpdated().flatMap(this::countChange);
+    }
+    
+    private Mono<Integer> countChange(Integer rows) {
+        if (rows == 0) {
+            return Mono.just(rows);
+        }
+        return databaseClient.sql("UPDATE student_changes SET counter = counter + 1 WHERE id = 1")
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(rows);
+    }
+    
+    private static DatabaseClient.GenericExecuteSpec bindFields(DatabaseClient.GenericExecuteSpec spec, Student student) {
+        spec = bindNullable(spec, "firstName", student.getFirstName());
+        spec = bindNullable(spec, "lastName", student.getLastName());
+        spec = bindNullable(spec, "course", student.getCourse());
+        return bindNullable(spec, "country", student.getCountry());
+    }
+    
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+    
+    private static Student toStudent(Row row) {
+        Student student = new Student();
+        student.setId(row.get("id", Long.class));
+        student.setFirstName(row.get("first_name", String.class));
+        student.setLastName(row.get("last_name", String.class));
+        student.setCourse(row.get("course", String.class));
+        student.setCountry(row.get("country", String.class));
+        student.setVersion(row.get("version", Long.class));
+        return student;
+    }
+}
\ No newline at end of file
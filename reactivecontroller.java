@@ -0,0 +1,49 @@
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// The students API on WebFlux + R2DBC; active when started with spring.main.web-application-type=reactive
+@RestController
+@RequestMapping("/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentController {
+    @Autowired
+    private ReactiveStudentService reactiveStudentService;
+    
+    @PostMapping
+    public Mono<Student> createStudent(@RequestBody Student student) {
+        return reactiveStudentService.createStudent(student);
+    }
+    
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Student>> getStudentById(@PathVariable Long id) {
+        return reactiveStudentService.getStudentById(id)
+                .map(student -> ResponseEntity.ok().eTag(VersionETags.of(student.getVersion())).body(student))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Student>> updateStudent(@PathVariable Long id, @RequestBody Student student,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return reactiveStudentService.updateStudent(id, student, VersionETags.parseIfMatch(ifMatch))
+                .map(updated -> ResponseEntity.ok().eTag(VersionETags.of(updated.getVersion())).body(updated));
+    }
+    
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteStudent(@PathVariable Long id,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return reactiveStudentService.deleteStudent(id, VersionETags.parseIfMatch(ifMatch));
+    }
+    
+    // Streamed as a JSON array, or one object per line for application/x-ndjson; the database is only
+    // read as fast as the client consumes
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Student> getAllStudents() {
+        return reactiveStudentService.getAllStudents();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerAdapter;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+// Same rules as SecurityConfig for the reactive stack. The cached BCrypt provider is blocking, so the
+// adapter runs it on a bounded elastic scheduler instead of an event-loop thread.
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+    
+    @Autowired
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+    
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager() {
+        return new ReactiveAuthenticationManagerAdapter(new ProviderManager(cachingAuthenticationProvider));
+    }
+    
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http.authorizeExchange()
+                .pathMatchers("/students").hasRole("ADMIN")
+                .pathMatchers("/students/**").hasRole("ADMIN")
+                .anyExchange().authenticated()
+                .and()
+                .authenticationManager(reactiveAuthenticationManager())
+                .formLogin()
+                .and()
+                .httpBasic()
+                .and()
+                .build();
+    }
+}
\ No newline at end of file
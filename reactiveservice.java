@@ -0,0 +1,93 @@
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+// Non-blocking counterpart of StudentService. Writes keep the shared cache, stats and change events
+// in step with the blocking stack so both can serve the same database.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentService {
+    private static final int UNCONDITIONAL_UPDATE_ATTEMPTS = 3;
+    
+    @Autowired
+    private ReactiveStudentRepository reactiveStudentRepository;
+    
+    @Autowired
+    private StudentService studentService;
+    
+    @Autowired
+    private StudentCache studentCache;
+    
+    @Autowired
+    private StudentStats studentStats;
+    
+    @Autowired
+    private ChangeEventBus changeEventBus;
+    
+    public Flux<Student> getAllStudents() {
+        return reactiveStudentRepository.findAll();
+    }
+    
+    public Mono<Student> getStudentById(Long id) {
+        return reactiveStudentRepository.findById(id);
+    }
+    
+    public Mono<Student> createStudent(Student student) {
+        return Mono.fromRunnable(() -> studentService.validateStudent(student))
+                .then(reactiveStudentRepository.insert(student))
+                .doOnNext(saved -> {
+                    studentCache.invalidate(saved.getId());
+                    studentStats.recordChange(null, saved);
+                    changeEventBus.publish("student", "created", saved.getId(), saved);
+                });
+    }
+    
+    // expectedVersion comes from If-Match; a mismatch is an ObjectOptimisticLockingFailureException (412).
+    // Without one the update applies to whatever is current: the row is re-read and the update retried
+    // when another write got in between, as the servlet stack's "any version" update does.
+    public Mono<Student> updateStudent(Long id, Student student, Long expectedVersion) {
+        Mono<Student> update = findExisting(id).flatMap(existing -> {
+            long version = expectedVersion != null ? expectedVersion : existing.getVersion();
+            student.setId(id);
+            return reactiveStudentRepository.update(student, version).flatMap(updated -> {
+                if (updated == 0) {
+                    return Mono.error(new ObjectOptimisticLockingFailureException(Student.class, id));
+                }
+                student.setVersion(version + 1);
+                studentCache.invalidate(id);
+                studentStats.recordChange(existing, student);
+                changeEventBus.publish("student", "updated", id, student);
+                return Mono.just(student);
+            });
+        });
+        if (expectedVersion != null) {
+            return update;
+        }
+        return update.retryWhen(Retry.max(UNCONDITIONAL_UPDATE_ATTEMPTS - 1)
+                .filter(ObjectOptimisticLockingFailureException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+    
+    public Mono<Void> deleteStudent(Long id, Long expectedVersion) {
+        return findExisting(id).flatMap(existing -> reactiveStudentRepository.deleteById(id, expectedVersion).flatMap(deleted -> {
+            if (deleted == 0) {
+                // Only a version mismatch is an error; an unconditional delete that lost a race is a no-op
+                return expectedVersion == null ? Mono.<Void>empty()
+                        : Mono.<Void>error(new ObjectOptimisticLockingFailureException(Student.class, id));
+            }
+            studentCache.invalidate(id);
+            studentStats.recordChange(existing, null);
+            changeEventBus.publish("student", "deleted", id, null);
+            return Mono.<Void>empty();
+        }));
+    }
+    
+    private Mono<Student> findExisting(Long id) {
+        return reactiveStudentRepository.findById(id)
+                .switchIfEmpty(Mono.error(new NotFoundException("Student not found with id: " + id)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// ReactiveStudentRepository against an in-memory H2 database through r2dbc-h2, with the same students
+// table and student_seq the JPA side uses
+class ReactiveStudentRepositoryTest {
+    private DatabaseClient databaseClient;
+    private ReactiveStudentRepository repository;
+    
+    @BeforeEach
+    void setUp() {
+        databaseClient = DatabaseClient.create(H2ConnectionFactory.inMemory("reactive-students"));
+        execute("CREATE SEQUENCE student_seq START WITH 50 INCREMENT BY 50");
+        execute("CREATE TABLE students (id BIGINT PRIMARY KEY, first_name VARCHAR(255), last_name VARCHAR(255), "
+                + "course VARCHAR(255), country VARCHAR(255), version BIGINT NOT NULL DEFAULT 0, deleted_at TIMESTAMP)");
+        execute("CREATE TABLE student_changes (id INT PRIMARY KEY, counter BIGINT)");
+        execute("INSERT INTO student_changes (id, counter) VALUES (1, 0)");
+        repository = repository(false);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        execute("DROP ALL OBJECTS");
+    }
+    
+    @Test
+    void insertTakesItsIdFromTheSequenceAndStartsAtVersionZero() {
+        Student saved = repository.insert(student("Ada", "Lovelace")).block();
+        
+        assertThat(saved.getId()).isEqualTo(50L);
+        Student found = repository.findById(saved.getId()).block();
+        assertThat(found.getFirstName()).isEqualTo("Ada");
+        assertThat(found.getVersion()).isZero();
+    }
+    
+    @Test
+    void updateOnlyAppliesToTheExpectedVersion() {
+        Student saved = repository.insert(student("Ada", "Lovelace")).block();
+        saved.setLastName("Byron");
+        
+        assertThat(repository.update(saved, 1L).block()).isZero();
+        assertThat(repository.update(saved, 0L).block()).isEqualTo(1);
+        
+        Student found = repository.findById(saved.getId()).block();
+        assertThat(found.getLastName()).isEqualTo("Byron");
+        assertThat(found.getVersion()).isEqualTo(1L);
+        assertThat(changeCount()).isEqualTo(2L);
+    }
+    
+    @Test
+    void deleteWithAStaleVersionKeepsTheRow() {
+        Student saved = repository.insert(student("Grace", "Hopper")).block();
+        
+        assertThat(repository.deleteById(saved.getId(), 3L).block()).isZero();
+        assertThat(repository.findById(saved.getId()).block()).isNotNull();
+        
+        assertThat(repository.deleteById(saved.getId(), 0L).block()).isEqualTo(1);
+        assertThat(repository.findById(saved.getId()).block()).isNull();
+    }
+    
+    @Test
+    void softDeleteHidesTheRowButKeepsIt() {
+        ReactiveStudentRepository softDeleting = repository(true);
+        Student saved = softDeleting.insert(student("Alan", "Turing")).block();
+        
+        assertThat(softDeleting.deleteById(saved.getId(), null).block()).isEqualTo(1);
+        
+        assertThat(softDeleting.findById(saved.getId()).block()).isNull();
+        assertThat(softDeleting.findAll().collectList().block()).isEmpty();
+        Long remaining = databaseClient.sql("SELECT COUNT(*) FROM students")
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .block();
+        assertThat(remaining).isEqualTo(1L);
+    }
+    
+    private Long changeCount() {
+        return databaseClient.sql("SELECT counter FROM student_changes")
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .block();
+    }
+    
+    private ReactiveStudentRepository repository(boolean softDelete) {
+        return new ReactiveStudentRepository(databaseClient, "SELECT NEXT VALUE FOR student_seq", softDelete);
+    }
+    
+    private void execute(String sql) {
+        databaseClient.sql(sql).fetch().rowsUpdated().block();
+    }
+    
+    private static Student student(String firstName, String lastName) {
+        Student student = new Student();
+        student.setFirstName(firstName);
+        student.setLastName(lastName);
+        student.setCourse("B.Sc");
+        student.setCountry("India");
+        return student;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,168 @@
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Pull-style readers for bulk imports; rows are parsed one at a time so the request body is never materialized.
+// A row that parses but does not bind throws BadRequestException and the next row is still readable.
+// Malformed input throws UncheckedIOException (from next() or hasNext()), after which hasNext() is false.
+public class StudentReaders {
+    private static final String[] CSV_COLUMNS = {"firstName", "lastName", "course", "country"};
+    
+    private StudentReaders() {
+    }
+    
+    public static Iterator<Student> json(JsonParser parser, ObjectMapper objectMapper) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new BadRequestException("Expected a JSON array of students");
+        }
+        return new Iterator<Student>() {
+            private UncheckedIOException failure;
+            private JsonToken next = advance();
+            
+            @Override
+            public boolean hasNext() {
+                throwFailure();
+                return next == JsonToken.START_OBJECT;
+            }
+            
+            // The row is read as a tree first, so a binding error leaves the parser at the next row
+            @Override
+            public Student next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                JsonNode row;
+                try {
+                    row = objectMapper.readTree(parser);
+                } catch (IOException e) {
+                    next = null;
+                    throw new UncheckedIOException(e);
+                }
+                next = advance();
+                try {
+                    return objectMapper.treeToValue(row, Student.class);
+                } catch (JsonProcessingException e) {
+                    throw new BadRequestException("Invalid student: " + e.getOriginalMessage());
+                }
+            }
+            
+            private JsonToken advance() {
+                try {
+                    return parser.nextToken();
+                } catch (IOException e) {
+                    failure = new UncheckedIOException(e);
+                    return null;
+                }
+            }
+            
+            private void throwFailure() {
+                if (failure != null) {
+                    UncheckedIOException thrown = failure;
+                    failure = null;
+                    throw thrown;
+                }
+            }
+        };
+    }
+    
+    // Expects a header line; columns are matched by name so their order does not matter
+    public static Iterator<Student> csv(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return new ArrayList<Student>().iterator();
+        }
+        List<String> headerColumns = parseCsvLine(header);
+        int[] positions = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            positions[i] = headerColumns.indexOf(CSV_COLUMNS[i]);
+        }
+        return new Iterator<Student>() {
+            private UncheckedIOException failure;
+            private String line = readLine();
+            
+            @Override
+            public boolean hasNext() {
+                if (failure != null) {
+                    UncheckedIOException thrown = failure;
+                    failure = null;
+                    throw thrown;
+                }
+                return line != null;
+            }
+            
+            @Override
+            public Student next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String current = line;
+                line = readLine();
+                List<String> values = parseCsvLine(current);
+                if (values.size() != headerColumns.size()) {
+                    throw new BadRequestException("Expected " + headerColumns.size() + " columns but found " + values.size());
+                }
+                Student student = new Student();
+                student.setFirstName(column(values, positions[0]));
+                student.setLastName(column(values, positions[1]));
+                student.setCourse(column(values, positions[2]));
+                student.setCountry(column(values, positions[3]));
+                return student;
+            }
+            
+            private String readLine() {
+                try {
+                    String next = reader.readLine();
+                    while (next != null && next.trim().isEmpty()) {
+                        next = reader.readLine();
+                    }
+                    return next;
+                } catch (IOException e) {
+                    failure = new UncheckedIOException(e);
+                    return null;
+                }
+            }
+        };
+    }
+    
+    private static String column(List<String> values, int position) {
+        return position < 0 || values.get(position).isEmpty() ? null : values.get(position);
+    }
+    
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+}
\ No newline at end of file
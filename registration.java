@@ -0,0 +1,328 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Write-behind intake for registration bursts (students.write-behind.enabled=true). POST /students appends
+// the student to a memory-mapped log, forces it to disk and answers 202 with a tracking id; a background
+// drainer group-commits the log into StudentRepository through StudentService's bulk import.
+//
+// Layout: header [drainedOffset:long][nextDrainId:long], then records [length:int][crc:int][trackingId:long][json].
+// Tracking ids are consecutive, so on restart replay stops at the first record that is torn, corrupt or
+// left over from before the log was last rewound. A crash between a commit and the header update replays
+// the batch, and so does a database outage or timeout, which stops the drain without advancing drainedOffset.
+// Replays are idempotent: every row is written with its tracking id in students.registration_id (unique),
+// and records whose id is already there are reported COMPLETED without being imported again. Only rows
+// the import rejects as invalid are marked FAILED.
+//
+// Outcomes are kept in memory only (the last 10,000): after a restart, ids of records that were still in
+// the log come back as PENDING, while ids that had already completed or failed are unknown (404).
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "students.write-behind.enabled", havingValue = "true")
+public class RegistrationLog {
+    private static final Logger log = LoggerFactory.getLogger(RegistrationLog.class);
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int MAX_TRACKED_OUTCOMES = 10_000;
+    
+    private final StudentService studentService;
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int batchSize;
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor();
+    
+    private int writeOffset;
+    private int drainedOffset;
+    private long nextTrackingId;
+    private long nextDrainId;
+    private int durableOffset;
+    private final Object syncLock = new Object();
+    
+    private final Map<Long, RegistrationStatus> outcomes = new LinkedHashMap<Long, RegistrationStatus>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RegistrationStatus> eldest) {
+            return size() > MAX_TRACKED_OUTCOMES;
+        }
+    };
+    
+    public RegistrationLog(StudentService studentService, ObjectMapper objectMapper,
+                           @Value("${students.write-behind.file:data/registrations.log}") String file,
+                           @Value("${students.write-behind.capacity-bytes:67108864}") int capacity,
+                           @Value("${students.write-behind.batch-size:1000}") int batchSize) throws IOException {
+        this.studentService = studentService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        Path path = Paths.get(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        recover();
+    }
+    
+    // Starts draining once the application (and the stats/search warm-up) is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDrainer(ApplicationReadyEvent event) {
+        Duration interval = event.getApplicationContext().getEnvironment()
+                .getProperty("students.write-behind.drain-interval", Duration.class, Duration.ofMillis(100));
+        drainer.scheduleWithFixedDelay(this::drainSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    // Returns once the registration is durable on disk
+    public long append(Student student) {
+        studentService.validateStudent(student);
+        student.setId(null);
+        student.setVersion(null);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(student);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long trackingId;
+        int end;
+        synchronized (this) {
+            if (writeOffset + RECORD_HEADER_SIZE + payload.length > buffer.capacity()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Registration log is full, retry later");
+            }
+            trackingId = nextTrackingId++;
+            ByteBuffer record = buffer.duplicate();
+            record.position(writeOffset);
+            record.putInt(payload.length).putInt((int) crc.getValue()).putLong(trackingId).put(payload);
+            writeOffset = record.position();
+            end = writeOffset;
+            outcomes.put(trackingId, RegistrationStatus.pending());
+        }
+        force(end);
+        return trackingId;
+    }
+    
+    // Null for ids this process never saw or has evicted; outcomes do not survive a restart
+    public synchronized RegistrationStatus getStatus(long trackingId) {
+        return outcomes.get(trackingId);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws IOException {
+        drainer.shutdown();
+        try {
+            drainer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        buffer.force();
+        channel.close();
+    }
+    
+    // Group commit of the fsync: one force() covers every record appended before it started
+    private void force(int end) {
+        synchronized (syncLock) {
+            if (durableOffset >= end) {
+                return;
+            }
+            int target;
+            synchronized (this) {
+                target = writeOffset;
+            }
+            buffer.force();
+            durableOffset = target;
+        }
+    }
+    
+    private void drainSafely() {
+        try {
+            while (drain() == batchSize) {
+                // keep going while the log is backed up
+            }
+        } catch (RuntimeException e) {
+            // drainedOffset was not advanced, so the same records are retried on the next run
+            log.error("Draining the registration log failed; will retry", e);
+        }
+    }
+    
+    private int drain() {
+        List<Long> trackingIds = new ArrayList<>(batchSize);
+        List<Student> students = new ArrayList<>(batchSize);
+        Set<Long> undecodable = new HashSet<>();
+        int offset;
+        synchronized (this) {
+            offset = drainedOffset;
+            ByteBuffer reader = buffer.duplicate();
+            while (offset < writeOffset && students.size() < batchSize) {
+                reader.position(offset);
+                int length = reader.getInt();
+                reader.getInt();
+                long trackingId = reader.getLong();
+                byte[] payload = new byte[length];
+                reader.get(payload);
+                offset = reader.position();
+                trackingIds.add(trackingId);
+                try {
+                    students.add(objectMapper.readValue(payload, Student.class));
+                } catch (IOException e) {
+                    undecodable.add(trackingId);
+                    students.add(new Student());
+                }
+            }
+        }
+        if (students.isEmpty()) {
+            return 0;
+        }
+        
+        // A replay skips rows an earlier, interrupted run already committed; the rest carry their tracking
+        // id into the unique registration_id column, so they can be recognised if this run is cut short too
+        Map<Long, Long> alreadyImported = studentService.findRegisteredStudents(trackingIds);
+        List<Integer> importedIndexes = new ArrayList<>(students.size());
+        List<Student> toImport = new ArrayList<>(students.size());
+        for (int i = 0; i < students.size(); i++) {
+            long trackingId = trackingIds.get(i);
+            if (!alreadyImported.containsKey(trackingId)) {
+                students.get(i).setRegistrationId(trackingId);
+                importedIndexes.add(i);
+                toImport.add(students.get(i));
+            }
+        }
+        BulkImportResult result = studentService.importStudents(toImport.iterator());
+        Map<Integer, String> errors = new HashMap<>();
+        for (BulkImportResult.RowError error : result.getErrors()) {
+            errors.put(importedIndexes.get(error.getRow() - 1), error.getMessage());
+        }
+        
+        // Lock order is always syncLock, then this (as in force)
+        synchronized (syncLock) {
+            synchronized (this) {
+                for (int i = 0; i < students.size(); i++) {
+                    long trackingId = trackingIds.get(i);
+                    String error = undecodable.contains(trackingId) ? "Unreadable log record" : errors.get(i);
+                    Long studentId = alreadyImported.getOrDefault(trackingId, students.get(i).getId());
+                    outcomes.put(trackingId, error == null
+                            ? RegistrationStatus.completed(studentId)
+                            : RegistrationStatus.failed(error));
+                }
+                drainedOffset = offset;
+                nextDrainId = trackingIds.get(trackingIds.size() - 1) + 1;
+                // Fully drained: rewind so the file is reused from the start
+                if (drainedOffset == writeOffset) {
+                    drainedOffset = HEADER_SIZE;
+                    writeOffset = HEADER_SIZE;
+                    durableOffset = HEADER_SIZE;
+                }
+                buffer.putLong(0, drainedOffset);
+                buffer.putLong(8, nextDrainId);
+            }
+        }
+        buffer.force();
+        return students.size();
+    }
+    
+    private void recover() {
+        long savedOffset = buffer.getLong(0);
+        drainedOffset = savedOffset < HEADER_SIZE || savedOffset > buffer.capacity() ? HEADER_SIZE : (int) savedOffset;
+        nextDrainId = Math.max(1, buffer.getLong(8));
+        long expectedId = nextDrainId;
+        int offset = drainedOffset;
+        ByteBuffer reader = buffer.duplicate();
+        while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            reader.position(offset);
+            int length = reader.getInt();
+            int checksum = reader.getInt();
+            long trackingId = reader.getLong();
+            if (length <= 0 || trackingId != expectedId || offset + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            reader.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            outcomes.put(trackingId, RegistrationStatus.pending());
+            offset = reader.position();
+            expectedId++;
+        }
+        // An empty log may be a new file: continue after the highest id already imported, or new
+        // registrations would be mistaken for replays
+        if (offset == drainedOffset) {
+            expectedId = Math.max(expectedId, studentService.findMaxRegistrationId() + 1);
+            nextDrainId = expectedId;
+        }
+        writeOffset = offset;
+        durableOffset = offset;
+        nextTrackingId = expectedId;
+        if (writeOffset > drainedOffset) {
+            log.info("Replaying {} registrations from the write-behind log", expectedId - nextDrainId);
+        }
+    }
+    
+    public static class RegistrationStatus {
+        private final String status;
+        private final Long studentId;
+        private final String error;
+        
+        private RegistrationStatus(String status, Long studentId, String error) {
+            this.status = status;
+            this.studentId = studentId;
+            this.error = error;
+        }
+        
+        static RegistrationStatus pending() {
+            return new RegistrationStatus("PENDING", null, null);
+        }
+        
+        static RegistrationStatus completed(Long studentId) {
+            return new RegistrationStatus("COMPLETED", studentId, null);
+        }
+        
+        static RegistrationStatus failed(String error) {
+            return new RegistrationStatus("FAILED", null, error);
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+        
+        public Long getStudentId() {
+            return studentId;
+        }
+        
+        public String getError() {
+            return error;
+        }
+    }
+}
\ No newline at end of file
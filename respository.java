@@ -1,4 +1,57 @@
-import org.springframework.data.jpa.repository.JpaRepository;
-
-public interface StudentRepository extends JpaRepository<Student, Long> {
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface StudentRepository extends JpaRepository<Student, Long>, JpaSpecificationExecutor<Student> {
+    
+    // Keyset (seek) pagination on id, used by the cursor-based page endpoint; pass a projection
+    // type such as StudentView to skip entity hydration
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable, Class<T> type);
+    
+    // Forward-only cursor over the whole table; must be consumed inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select s from Student s order by s.id")
+    Stream<Student> streamAll();
+    
+    // Served by the (course, country) index without touching the table rows
+    @Query("select s.course, s.country, count(s) from Student s group by s.course, s.country")
+    List<Object[]> countByCourseAndCountry();
+    
+    // Just what a delete needs to keep StudentStats and If-Match checks right: id, course, country, version.
+    // The rows stay locked until the delete commits, so exactly these rows are removed, with these values.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s.id, s.course, s.country, s.version from Student s where s.id in :ids")
+    List<Object[]> findDeletionKeys(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("update Student s set s.deletedAt = :deletedAt, s.version = s.version + 1 where s.id in :ids and s.deletedAt is null")
+    int softDeleteByIdIn(@Param("ids") Collection<Long> ids, @Param("deletedAt") Instant deletedAt);
+    
+    @Modifying
+    @Query("delete from Student s where s.id in :ids")
+    int hardDeleteByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // If-Match deletes: 0 rows means the version moved on (or the row is gone)
+    @Modifying
+    @Query("update Student s set s.deletedAt = :deletedAt, s.version = s.version + 1 where s.id = :id and s.version = :version and s.deletedAt is null")
+    int softDeleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version, @Param("deletedAt") Instant deletedAt);
+    
+    @Modifying
+    @Query("delete from Student s where s.id = :id and s.version = :version")
+    int hardDeleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
\ No newline at end of file
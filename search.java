@@ -0,0 +1,224 @@
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-process inverted index over Ticket.title and Ticket.description, ranked with BM25
+@Component
+public class TicketSearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_MATCH_BOOST = 0.5;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    private Postings live = new Postings();
+    // While a rebuild runs, writes go to both indexes, and ids written meanwhile are not overwritten by the scan
+    private Postings rebuilding;
+    private Set<Long> writtenDuringRebuild;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    public void index(Ticket ticket) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTokens(frequencies, ticket.getTitle(), TITLE_WEIGHT)
+                + addTokens(frequencies, ticket.getDescription(), DESCRIPTION_WEIGHT);
+        lock.writeLock().lock();
+        try {
+            live.put(ticket.getId(), frequencies, length);
+            if (rebuilding != null) {
+                rebuilding.put(ticket.getId(), frequencies, length);
+                writtenDuringRebuild.add(ticket.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            live.remove(id);
+            if (rebuilding != null) {
+                rebuilding.remove(id);
+                writtenDuringRebuild.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Builds a new index from every ticket the scan hands to its sink and swaps it in at the end;
+    // searches keep using the current index until then
+    public synchronized void rebuild(Consumer<Consumer<Ticket>> scan) {
+        lock.writeLock().lock();
+        try {
+            rebuilding = new Postings();
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            scan.accept(ticket -> {
+                Map<String, Integer> frequencies = new HashMap<>();
+                int length = addTokens(frequencies, ticket.getTitle(), TITLE_WEIGHT)
+                        + addTokens(frequencies, ticket.getDescription(), DESCRIPTION_WEIGHT);
+                lock.writeLock().lock();
+                try {
+                    if (!writtenDuringRebuild.contains(ticket.getId())) {
+                        rebuilding.put(ticket.getId(), frequencies, length);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                live = rebuilding;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                rebuilding = null;
+                writtenDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Every query term must match, either exactly or as a prefix of an indexed term
+    public List<Long> search(String query, int offset, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Map<Long, Integer>> postings = live.postings;
+            Map<Long, Integer> documentLengths = live.documentLengths;
+            Map<Long, Double> scores = null;
+            double averageLength = documentLengths.isEmpty() ? 1 : (double) live.totalLength / documentLengths.size();
+            for (String queryTerm : queryTerms) {
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Integer>> entry : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                    double boost = entry.getKey().equals(queryTerm) ? 1.0 : PREFIX_MATCH_BOOST;
+                    double idf = Math.log(1 + (documentLengths.size() - entry.getValue().size() + 0.5) / (entry.getValue().size() + 0.5));
+                    for (Map.Entry<Long, Integer> posting : entry.getValue().entrySet()) {
+                        double tf = posting.getValue();
+                        double norm = 1 - B + B * documentLengths.get(posting.getKey()) / averageLength;
+                        termScores.merge(posting.getKey(), boost * idf * tf * (K1 + 1) / (tf + K1 * norm), Double::sum);
+                    }
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            int end = (int) Math.min((long) offset + limit, scores.size());
+            return topRanked(scores, end).subList(Math.min(offset, end), end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private List<Long> topRanked(Map<Long, Double> scores, int count) {
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+        List<Long> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+    
+    // One generation of the index; only touched under the outer lock
+    private static class Postings {
+        // term -> (ticket id -> weighted term frequency); sorted so prefix queries are a range scan
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+        private final Map<Long, Integer> documentLengths = new HashMap<>();
+        private long totalLength;
+        
+        void put(Long id, Map<String, Integer> frequencies, int length) {
+            remove(id);
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(id, entry.getValue());
+            }
+            documentTerms.put(id, frequencies.keySet());
+            documentLengths.put(id, length);
+            totalLength += length;
+        }
+        
+        void remove(Long id) {
+            Set<String> terms = documentTerms.remove(id);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Map<Long, Integer> documents = postings.get(term);
+                documents.remove(id);
+                if (documents.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+            totalLength -= documentLengths.remove(id);
+        }
+    }
+    
+    private static int addTokens(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+    
+    private static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
\ No newline at end of file
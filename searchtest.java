@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// TicketSearchIndex on its own: rebuild swaps, writes racing a rebuild and paging bounds
+class TicketSearchIndexTest {
+    private final TicketSearchIndex index = new TicketSearchIndex();
+    
+    @Test
+    void searchesUseTheOldIndexUntilTheRebuildFinishes() {
+        index.index(ticket(1L, "Printer jam", "Tray two"));
+        
+        index.rebuild(sink -> {
+            sink.accept(ticket(2L, "Printer offline", "Network"));
+            assertThat(index.search("printer", 0, 10)).containsExactly(1L);
+        });
+        
+        assertThat(index.search("printer", 0, 10)).containsExactly(2L);
+    }
+    
+    @Test
+    void writesDuringARebuildWinOverTheScannedRow() {
+        index.rebuild(sink -> {
+            index.index(ticket(1L, "Password reset", "Locked out"));
+            index.remove(2L);
+            sink.accept(ticket(1L, "Printer jam", "Tray two"));
+            sink.accept(ticket(2L, "Printer offline", "Network"));
+        });
+        
+        assertThat(index.search("printer", 0, 10)).isEmpty();
+        assertThat(index.search("password", 0, 10)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+    
+    @Test
+    void offsetsNearIntegerMaxReturnNothing() {
+        index.index(ticket(1L, "Printer jam", null));
+        
+        assertThat(index.search("printer", Integer.MAX_VALUE - 5, 20)).isEmpty();
+    }
+    
+    @Test
+    void everyTermMustMatchExactlyOrAsAPrefix() {
+        index.rebuild(sink -> Arrays.asList(
+                ticket(1L, "Printer jam", "Tray two"),
+                ticket(2L, "Print queue stuck", null),
+                ticket(3L, "Email bounce", "Printer unrelated")).forEach(sink));
+        
+        assertThat(index.search("print jam", 0, 10)).containsExactly(1L);
+        assertThat(index.search("", 0, 10)).isEqualTo(Collections.emptyList());
+    }
+    
+    private static Ticket ticket(Long id, String title, String description) {
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setTitle(title);
+        ticket.setDescription(description);
+        return ticket;
+    }
+}
\ No newline at end of file
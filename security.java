@@ -1,38 +1,68 @@
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
-import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-
-@Configuration
-@EnableWebSecurity
-public class SecurityConfig extends WebSecurityConfigurerAdapter {
-    
-    @Override
-    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.inMemoryAuthentication()
-                .withUser("admin").password(passwordEncoder().encode("adminPass")).roles("ADMIN")
-                .and()
-                .withUser("user").password(passwordEncoder().encode("userPass")).roles("USER");
-    }
-    
-    @Override
-    protected void configure(HttpSecurity http) throws Exception {
-        http.authorizeRequests()
-                .antMatchers("/students").hasRole("ADMIN")
-                .antMatchers("/students/**").hasRole("ADMIN")
-                .anyRequest().authenticated()
-                .and()
-                .formLogin()
-                .and()
-                .httpBasic();
-    }
-    
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@Configuration
+@EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(RateLimitFilter.RateLimitProperties.class)
+public class SecurityConfig extends WebSecurityConfigurerAdapter {
+    
+    @Autowired
+    private TokenService tokenService;
+    
+    @Autowired
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+    
+    @Autowired
+    private RateLimitFilter.RateLimitProperties rateLimitProperties;
+    
+    @Autowired
+    private List<DataSource> dataSources;
+    
+    @Autowired(required = false)
+    private VirtualThreadConfig.DatabaseConcurrencyLimiter databaseConcurrencyLimiter;
+    
+    @Value("${security.token.enabled:false}")
+    private boolean tokenEnabled;
+    
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+        auth.authenticationProvider(cachingAuthenticationProvider);
+    }
+    
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+        http.authorizeRequests()
+                .antMatchers("/students/export", "/students/import").hasRole("ADMIN")
+                .antMatchers("/students").hasRole("ADMIN")
+                .antMatchers("/students/**").hasRole("ADMIN")
+                .anyRequest().authenticated()
+                .and()
+                .formLogin()
+                .and()
+                .httpBasic()
+                .and()
+                // The import only accepts application/x-student-snapshot, which a cross-site form cannot send
+                // without a CORS preflight, so Basic-authenticated admin clients need no CSRF token there
+                .csrf().ignoringAntMatchers("/auth/token", "/students/import");
+        if (tokenEnabled) {
+            http.addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class);
+            http.csrf().ignoringRequestMatchers(TokenAuthenticationFilter::isBearerRequest);
+        }
+        if (rateLimitProperties.isEnabled()) {
+            http.addFilterAfter(new RateLimitFilter(rateLimitProperties, dataSources, databaseConcurrencyLimiter), AnonymousAuthenticationFilter.class);
+        }
+    }
 }
\ No newline at end of file
@@ -1,526 +1,1286 @@
-User
-Problem Statement : Ticket Tracker Application
-You are required to create a CRUDS (Create, Read, Update, Delete, Search) functionality for a ticket tracker
-application.
-Check the below screenshots for visualization.
-1) Home Screen with data and action buttons (New Ticket, Edit, Delete, View)
-2) Edit page
-Proprietary content. © Great Learning. All Rights Reserved. Unauthorized use or distribution prohibited. 1
-3) Create Ticket page
-Proprietary content. © Great Learning. All Rights Reserved. Unauthorized use or distribution prohibited. 2
-4) Search Functionality (search query over Title and short description)
-___________________________________________________________________________________
-Instructions
-i) You can use any RDBMS (eg, MySql, H2,...)
-ii) Provide Screenshots of the operations along with code submission. (note → Screenshots will
-one of the criterias while grading)
-iii) You can also record your screen while demonstrating CRUD operation, upload on the drive
-and share the drive link along with code.
-iv) Spring Application must follow the standard project structure
-v) Code should follow naming conventions along with proper indentations.
-vi) You are free to choose any color combination & UI Design (including text, buttons, icons)
-ChatGPT
-
-Creating a CRUDS functionality for a ticket tracker application involves several steps. Here's a general outline of what you'll need to do:
-
-    Set Up Your Development Environment: Make sure you have your preferred IDE (like IntelliJ IDEA or Eclipse) installed, along with any necessary frameworks and dependencies (e.g., Spring Boot, Hibernate, Thymeleaf for templating).
-
-    Create a Spring Boot Project: Use Spring Initializr or your IDE to create a new Spring Boot project. Make sure to include dependencies for web, JPA, and any other necessary dependencies for your chosen database.
-
-    Define Entity Classes: Create Java classes to represent your ticket entities (e.g., Ticket). Annotate these classes with JPA annotations to define the database schema.
-
-    Implement Repository Interfaces: Create repository interfaces (e.g., TicketRepository) that extend JpaRepository to handle CRUD operations for your entities.
-
-    Create Controller Classes: Define controller classes (e.g., TicketController) to handle HTTP requests. Implement methods for CRUD operations (e.g., createTicket(), getTicketById(), updateTicket(), deleteTicket()).
-
-    Implement Service Layer: Create service classes (e.g., TicketService) to encapsulate business logic. These classes will interact with the repository layer to perform CRUD operations.
-
-    Implement Views: Create HTML templates using Thymeleaf or your preferred templating engine to provide views for creating, reading, updating, and deleting tickets. Include forms for submitting data and tables for displaying ticket information.
-
-    Implement Search Functionality: Add a search feature that allows users to search tickets by title and short description. Implement this functionality in your controller and service layers.
-
-    Test Your Application: Test each CRUD operation to ensure that they work as expected. Also, test the search functionality to verify that it returns the correct results.
-
-    Refactor and Optimize: Review your code for any potential improvements, such as optimizing database queries, handling exceptions, and improving user experience.
-
-Remember to follow best practices for coding, such as using proper naming conventions, adding comments for clarity, and organizing your code into logical packages and classes. Also, consider security aspects such as input validation and protection against common vulnerabilities like SQL injection.
-User
-give me code
-ChatGPT
-
-Sure, let's start by creating the entity class for the ticket:
-
-java
-
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
-
-@Entity
-public class Ticket {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-    private String title;
-    private String description;
-    
-    // Constructors, getters, and setters
-}
-
-Next, we'll create the repository interface for handling CRUD operations:
-
-java
-
-import org.springframework.data.jpa.repository.JpaRepository;
-
-public interface TicketRepository extends JpaRepository<Ticket, Long> {
-    // Additional methods for custom queries if needed
-}
-
-Now, let's create the service class to encapsulate business logic:
-
-java
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-import java.util.List;
-import java.util.Optional;
-
-@Service
-public class TicketService {
-    @Autowired
-    private TicketRepository ticketRepository;
-    
-    public List<Ticket> getAllTickets() {
-        return ticketRepository.findAll();
-    }
-    
-    public Optional<Ticket> getTicketById(Long id) {
-        return ticketRepository.findById(id);
-    }
-    
-    public Ticket createTicket(Ticket ticket) {
-        return ticketRepository.save(ticket);
-    }
-    
-    public Ticket updateTicket(Long id, Ticket ticket) {
-        if (ticketRepository.existsById(id)) {
-            ticket.setId(id);
-            return ticketRepository.save(ticket);
-        } else {
-            throw new IllegalArgumentException("Ticket not found with id: " + id);
-        }
-    }
-    
-    public void deleteTicket(Long id) {
-        ticketRepository.deleteById(id);
-    }
-    
-    // Method for searching tickets by title and description
-    public List<Ticket> searchTickets(String keyword) {
-        return ticketRepository.findByTitleContainingOrDescriptionContaining(keyword, keyword);
-    }
-}
-
-Now, let's create the controller class to handle HTTP requests:
-
-java
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
-import java.util.Optional;
-
-@RestController
-@RequestMapping("/tickets")
-public class TicketController {
-    @Autowired
-    private TicketService ticketService;
-    
-    @GetMapping
-    public List<Ticket> getAllTickets() {
-        return ticketService.getAllTickets();
-    }
-    
-    @GetMapping("/{id}")
-    public Optional<Ticket> getTicketById(@PathVariable Long id) {
-        return ticketService.getTicketById(id);
-    }
-    
-    @PostMapping
-    public Ticket createTicket(@RequestBody Ticket ticket) {
-        return ticketService.createTicket(ticket);
-    }
-    
-    @PutMapping("/{id}")
-    public Ticket updateTicket(@PathVariable Long id, @RequestBody Ticket ticket) {
-        return ticketService.updateTicket(id, ticket);
-    }
-    
-    @DeleteMapping("/{id}")
-    public void deleteTicket(@PathVariable Long id) {
-        ticketService.deleteTicket(id);
-    }
-    
-    // Endpoint for searching tickets
-    @GetMapping("/search")
-    public List<Ticket> searchTickets(@RequestParam String keyword) {
-        return ticketService.searchTickets(keyword);
-    }
-}
-
-These are the basic components for implementing CRUD operations and search functionality in a Spring Boot application. You'll need to create corresponding HTML templates for the views and configure your database settings in the application.properties file. Additionally, you may want to add error handling and validation to improve the robustness of your application. Let me know if you need further assistance with any specific part of the implementation!
-User
-give me html as well
-ChatGPT
-
-Certainly! Below are simplified HTML templates for the ticket tracker application:
-
-home.html (Home Screen)
-
-html
-
-<!DOCTYPE html>
-<html lang="en">
-<head>
-    <meta charset="UTF-8">
-    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-    <title>Ticket Tracker - Home</title>
-</head>
-<body>
-    <h1>Ticket Tracker</h1>
-    <table border="1">
-        <thead>
-            <tr>
-                <th>ID</th>
-                <th>Title</th>
-                <th>Description</th>
-                <th>Action</th>
-            </tr>
-        </thead>
-        <tbody>
-            <!-- Loop through tickets and display each one -->
-            <tr th:each="ticket : ${tickets}">
-                <td th:text="${ticket.id}"></td>
-                <td th:text="${ticket.title}"></td>
-                <td th:text="${ticket.description}"></td>
-                <td>
-                    <a th:href="@{'/tickets/' + ${ticket.id}}">View</a>
-                    <a th:href="@{'/tickets/' + ${ticket.id} + '/edit'}">Edit</a>
-                    <a th:href="@{'/tickets/' + ${ticket.id} + '/delete'}">Delete</a>
-                </td>
-            </tr>
-        </tbody>
-    </table>
-    <a href="/tickets/new">New Ticket</a>
-</body>
-</html>
-
-edit.html (Edit Ticket Page)
-
-html
-
-<!DOCTYPE html>
-<html lang="en">
-<head>
-    <meta charset="UTF-8">
-    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-    <title>Edit Ticket</title>
-</head>
-<body>
-    <h1>Edit Ticket</h1>
-    <form method="post" action="/tickets/{id}">
-        <input type="hidden" name="_method" value="put"/>
-        <label for="title">Title:</label>
-        <input type="text" id="title" name="title" th:value="${ticket.title}"/><br/>
-        <label for="description">Description:</label><br/>
-        <textarea id="description" name="description" rows="4" cols="50" th:text="${ticket.description}"></textarea><br/>
-        <button type="submit">Save</button>
-    </form>
-</body>
-</html>
-
-create.html (Create Ticket Page)
-
-html
-
-<!DOCTYPE html>
-<html lang="en">
-<head>
-    <meta charset="UTF-8">
-    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-    <title>Create Ticket</title>
-</head>
-<body>
-    <h1>Create Ticket</h1>
-    <form method="post" action="/tickets">
-        <label for="title">Title:</label>
-        <input type="text" id="title" name="title"/><br/>
-        <label for="description">Description:</label><br/>
-        <textarea id="description" name="description" rows="4" cols="50"></textarea><br/>
-        <button type="submit">Create</button>
-    </form>
-</body>
-</html>
-
-search.html (Search Functionality)
-
-html
-
-<!DOCTYPE html>
-<html lang="en">
-<head>
-    <meta charset="UTF-8">
-    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-    <title>Search Tickets</title>
-</head>
-<body>
-    <h1>Search Tickets</h1>
-    <form method="get" action="/tickets/search">
-        <label for="keyword">Keyword:</label>
-        <input type="text" id="keyword" name="keyword"/><br/>
-        <button type="submit">Search</button>
-    </form>
-    <table border="1">
-        <thead>
-            <tr>
-                <th>ID</th>
-                <th>Title</th>
-                <th>Description</th>
-                <th>Action</th>
-            </tr>
-        </thead>
-        <tbody>
-            <!-- Loop through search results and display each one -->
-            <tr th:each="ticket : ${searchResults}">
-                <td th:text="${ticket.id}"></td>
-                <td th:text="${ticket.title}"></td>
-                <td th:text="${ticket.description}"></td>
-                <td>
-                    <a th:href="@{'/tickets/' + ${ticket.id}}">View</a>
-                    <a th:href="@{'/tickets/' + ${ticket.id} + '/edit'}">Edit</a>
-                    <a th:href="@{'/tickets/' + ${ticket.id} + '/delete'}">Delete</a>
-                </td>
-            </tr>
-        </tbody>
-    </table>
-</body>
-</html>
-
-These HTML templates use Thymeleaf for server-side rendering and include placeholders for dynamic data using Thymeleaf expressions. You'll need to integrate these templates into your Spring Boot application and configure the appropriate routes in your controller class. Let me know if you need further assistance!
-User
-“Lab Session”
-Problem Statement: 
-In College fest, Students want to take registrations for a Debate event and want to keep track of student details based on the course. Help the students to create a table with the help of Spring, MVC, Hibernate ORM to perform CRUD operations on the table.
-
-Sample Table: 
-
-Student Id	FirstName	LastName	Course	Country
-1	Suresh	Reddy	B.Tech	India
-2	Murali	Mohan	B.Arch	Canada
-3	Daniel	Denson	B.Tech	New Zealand
-4	Tanya	Gupta	B.Com	USA
-
-Create a Dynamic web project and make sure that the following operations can be performed.
-
-1.	Insert new records into the table.
-2.	Update existing records into the table.
-3.	Delete existing records from the table.
-4.	Print all records from the table.
-5.	Add a security layer where there will be two roles USER, ADMIN.
-6.	Admin will have the privilege of performing all the operations.
-7.	User can view/save the details.
-ChatGPT
-
-To achieve the requirements outlined in the problem statement, you'll need to set up a Spring MVC project with Hibernate ORM for database operations. Below, I'll provide you with a step-by-step guide on how to implement the functionalities:
-
-    Set Up Project:
-        Create a new Spring MVC project using your preferred IDE (e.g., IntelliJ IDEA, Eclipse).
-        Configure the project to use Hibernate ORM for database operations.
-
-    Define Entity Class:
-        Create an entity class Student representing the table structure.
-        Annotate the class with Hibernate annotations to map it to the database table.
-
-    Create Repository Interface:
-        Create a repository interface StudentRepository extending JpaRepository<Student, Long> to handle CRUD operations.
-
-    Implement Service Layer:
-        Create a service class StudentService to encapsulate business logic.
-        Implement methods for CRUD operations (e.g., createStudent(), updateStudent(), deleteStudent(), getAllStudents()).
-
-    Create Controller:
-        Create a controller class StudentController to handle HTTP requests.
-        Implement methods for each CRUD operation as well as for printing all records.
-        Add security annotations for role-based access control.
-
-    Configure Security:
-        Configure Spring Security to define roles (USER, ADMIN) and access permissions.
-        Restrict access to CRUD operations based on user roles.
-        Use authentication mechanisms (e.g., form-based login) to authenticate users.
-
-    Create Views:
-        Create HTML views for inserting, updating, deleting, and printing student records.
-        Include forms for submitting data and tables for displaying student information.
-        Apply Thymeleaf or JSP for server-side rendering and dynamic content.
-
-    Test the Application:
-        Test each CRUD operation to ensure that they work as expected.
-        Verify that access control is properly enforced based on user roles.
-        Test the application in different scenarios to identify and fix any bugs or issues.
-
-Below is a simplified code snippet for each component to get you started:
-
-Student.java (Entity Class)
-
-java
-
-@Entity
-public class Student {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-    private String firstName;
-    private String lastName;
-    private String course;
-    private String country;
-    
-    // Constructors, getters, and setters
-}
-
-StudentRepository.java (Repository Interface)
-
-java
-
-public interface StudentRepository extends JpaRepository<Student, Long> {
-}
-
-StudentService.java (Service Class)
-
-java
-
-@Service
-public class StudentService {
-    @Autowired
-    private StudentRepository studentRepository;
-    
-    public Student createStudent(Student student) {
-        return studentRepository.save(student);
-    }
-    
-    public Student updateStudent(Long id, Student student) {
-        // Implement update logic
-    }
-    
-    public void deleteStudent(Long id) {
-        studentRepository.deleteById(id);
-    }
-    
-    public List<Student> getAllStudents() {
-        return studentRepository.findAll();
-    }
-}
-
-StudentController.java (Controller Class)
-
-java
-
-@RestController
-@RequestMapping("/students")
-public class StudentController {
-    @Autowired
-    private StudentService studentService;
-    
-    @PostMapping
-    public Student createStudent(@RequestBody Student student) {
-        return studentService.createStudent(student);
-    }
-    
-    @PutMapping("/{id}")
-    public Student updateStudent(@PathVariable Long id, @RequestBody Student student) {
-        return studentService.updateStudent(id, student);
-    }
-    
-    @DeleteMapping("/{id}")
-    public void deleteStudent(@PathVariable Long id) {
-        studentService.deleteStudent(id);
-    }
-    
-    @GetMapping
-    public List<Student> getAllStudents() {
-        return studentService.getAllStudents();
-    }
-}
-
-This is a basic setup to get you started with the implementation. You'll need to expand upon these components and add additional features (such as security) as per your requirements. Let me know if you need further assistance!
-User
-give me code as being asked
-ChatGPT
-
-Sure, let's start by setting up a basic Spring Boot project with Spring Data JPA for database operations and Spring Security for role-based access control. Below, I'll provide code snippets for each component as requested:
-
-1. Set Up Project:
-
-    Create a new Spring Boot project using your preferred IDE or Spring Initializr.
-    Include dependencies for Spring Web, Spring Data JPA, and Spring Security.
-
-2. Define Entity Class:
-
-java
-
-import javax.persistence.*;
-
-@Entity
-@Table(name = "students")
-public class Student {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-    private String firstName;
-    private String lastName;
-    private String course;
-    private String country;
-    
-    // Constructors, getters, and setters
-}
-
-3. Create Repository Interface:
-
-java
-
-import org.springframework.data.jpa.repository.JpaRepository;
-
-public interface StudentRepository extends JpaRepository<Student, Long> {
-}
-
-4. Implement Service Layer:
-
-java
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-import java.util.List;
-
-@Service
-public class StudentService {
-    @Autowired
-    private StudentRepository studentRepository;
-    
-    public Student createStudent(Student student) {
-        return studentRepository.save(student);
-    }
-    
-    public Student updateStudent(Long id, Student student) {
-        // Implement update logic
-    }
-    
-    public void deleteStudent(Long id) {
-        studentRepository.deleteById(id);
-    }
-    
-    public List<Student> getAllStudents() {
-        return studentRepository.findAll();
-    }
+User
+Problem Statement : Ticket Tracker Application
+You are required to create a CRUDS (Create, Read, Update, Delete, Search) functionality for a ticket tracker
+application.
+Check the below screenshots for visualization.
+1) Home Screen with data and action buttons (New Ticket, Edit, Delete, View)
+2) Edit page
+Proprietary content. © Great Learning. All Rights Reserved. Unauthorized use or distribution prohibited. 1
+3) Create Ticket page
+Proprietary content. © Great Learning. All Rights Reserved. Unauthorized use or distribution prohibited. 2
+4) Search Functionality (search query over Title and short description)
+___________________________________________________________________________________
+Instructions
+i) You can use any RDBMS (eg, MySql, H2,...)
+ii) Provide Screenshots of the operations along with code submission. (note → Screenshots will
+one of the criterias while grading)
+iii) You can also record your screen while demonstrating CRUD operation, upload on the drive
+and share the drive link along with code.
+iv) Spring Application must follow the standard project structure
+v) Code should follow naming conventions along with proper indentations.
+vi) You are free to choose any color combination & UI Design (including text, buttons, icons)
+ChatGPT
+
+Creating a CRUDS functionality for a ticket tracker application involves several steps. Here's a general outline of what you'll need to do:
+
+    Set Up Your Development Environment: Make sure you have your preferred IDE (like IntelliJ IDEA or Eclipse) installed, along with any necessary frameworks and dependencies (e.g., Spring Boot, Hibernate, Thymeleaf for templating).
+
+    Create a Spring Boot Project: Use Spring Initializr or your IDE to create a new Spring Boot project. Make sure to include dependencies for web, JPA, and any other necessary dependencies for your chosen database.
+
+    Define Entity Classes: Create Java classes to represent your ticket entities (e.g., Ticket). Annotate these classes with JPA annotations to define the database schema.
+
+    Implement Repository Interfaces: Create repository interfaces (e.g., TicketRepository) that extend JpaRepository to handle CRUD operations for your entities.
+
+    Create Controller Classes: Define controller classes (e.g., TicketController) to handle HTTP requests. Implement methods for CRUD operations (e.g., createTicket(), getTicketById(), updateTicket(), deleteTicket()).
+
+    Implement Service Layer: Create service classes (e.g., TicketService) to encapsulate business logic. These classes will interact with the repository layer to perform CRUD operations.
+
+    Implement Views: Create HTML templates using Thymeleaf or your preferred templating engine to provide views for creating, reading, updating, and deleting tickets. Include forms for submitting data and tables for displaying ticket information.
+
+    Implement Search Functionality: Add a search feature that allows users to search tickets by title and short description. Implement this functionality in your controller and service layers.
+
+    Test Your Application: Test each CRUD operation to ensure that they work as expected. Also, test the search functionality to verify that it returns the correct results.
+
+    Refactor and Optimize: Review your code for any potential improvements, such as optimizing database queries, handling exceptions, and improving user experience.
+
+Remember to follow best practices for coding, such as using proper naming conventions, adding comments for clarity, and organizing your code into logical packages and classes. Also, consider security aspects such as input validation and protection against common vulnerabilities like SQL injection.
+User
+give me code
+ChatGPT
+
+Sure, let's start by creating the entity class for the ticket:
+
+java
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Where;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import java.time.Instant;
+
+@Entity
+@DynamicUpdate
+@Where(clause = "deleted_at is null")
+public class Ticket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String title;
+    private String description;
+    
+    @JsonIgnore
+    private Instant deletedAt;
+    
+    public Ticket() {
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+    
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
+
+Next, we'll create the repository interface for handling CRUD operations:
+
+java
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface TicketRepository extends JpaRepository<Ticket, Long> {
+    
+    @Modifying
+    @Query("update Ticket t set t.deletedAt = :deletedAt where t.id = :id and t.deletedAt is null")
+    int softDeleteById(@Param("id") Long id, @Param("deletedAt") Instant deletedAt);
+    
+    @Modifying
+    @Query("delete from Ticket t where t.id = :id")
+    int hardDeleteById(@Param("id") Long id);
+    
+    // Keyset page for full scans: no OFFSET and, being a Slice, no count query
+    Slice<Ticket> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+}
+
+Now, let's create the service class to encapsulate business logic:
+
+java
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class TicketService {
+    private static final int INDEX_REBUILD_BATCH_SIZE = 1000;
+    private static final PartialUpdate TICKET_PATCH =
+            new PartialUpdate("Ticket", new HashSet<>(Arrays.asList("title", "description")));
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private TicketSearchIndex ticketSearchIndex;
+    
+    @Autowired
+    private ChangeEventBus changeEventBus;
+    
+    @Value("${soft-delete.enabled:false}")
+    private boolean softDelete;
+    
+    @Transactional(readOnly = true)
+    public List<Ticket> getAllTickets() {
+        return ticketRepository.findAll();
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<Ticket> getTicketById(Long id) {
+        return ticketRepository.findById(id);
+    }
+    
+    // The search index only sees a ticket once its transaction commits, so a rollback never leaves it searchable
+    @Transactional
+    public Ticket createTicket(Ticket ticket) {
+        Ticket saved = ticketRepository.save(ticket);
+        TransactionCallbacks.afterCommit(() -> ticketSearchIndex.index(saved));
+        changeEventBus.publish("ticket", "created", saved.getId(), saved);
+        return saved;
+    }
+    
+    // The existence check and the save share one transaction and connection
+    @Transactional
+    public Ticket updateTicket(Long id, Ticket ticket) {
+        if (ticketRepository.existsById(id)) {
+            ticket.setId(id);
+            Ticket saved = ticketRepository.save(ticket);
+            TransactionCallbacks.afterCommit(() -> ticketSearchIndex.index(saved));
+            changeEventBus.publish("ticket", "updated", id, saved);
+            return saved;
+        } else {
+            throw new NotFoundException("Ticket not found with id: " + id);
+        }
+    }
+    
+    // Single UPDATE of only the supplied columns; the ticket is only re-read to refresh the search index
+    @Transactional
+    public void patchTicket(Long id, Map<String, Object> changes) {
+        if (TICKET_PATCH.execute(entityManager, id, changes) == 0) {
+            throw new NotFoundException("Ticket not found with id: " + id);
+        }
+        ticketRepository.findById(id).ifPresent(ticket -> TransactionCallbacks.afterCommit(() -> ticketSearchIndex.index(ticket)));
+        changeEventBus.publish("ticket", "updated", id, null);
+    }
+    
+    // One UPDATE (or DELETE with soft-delete off) without loading the ticket first
+    @Transactional
+    public void deleteTicket(Long id) {
+        int deleted = softDelete
+                ? ticketRepository.softDeleteById(id, Instant.now())
+                : ticketRepository.hardDeleteById(id);
+        if (deleted == 0) {
+            throw new NotFoundException("Ticket not found with id: " + id);
+        }
+        TransactionCallbacks.afterCommit(() -> ticketSearchIndex.remove(id));
+        changeEventBus.publish("ticket", "deleted", id, null);
+    }
+    
+    // Method for searching tickets by title and description, ranked by relevance
+    @Transactional(readOnly = true)
+    public List<Ticket> searchTickets(String keyword, int page, int size) {
+        if ((long) page * size > Integer.MAX_VALUE) {
+            throw new BadRequestException("Page out of range: " + page);
+        }
+        List<Long> ids = ticketSearchIndex.search(keyword, page * size, size);
+        Map<Long, Ticket> tickets = new HashMap<>();
+        for (Ticket ticket : ticketRepository.findAllById(ids)) {
+            tickets.put(ticket.getId(), ticket);
+        }
+        List<Ticket> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Ticket ticket = tickets.get(id);
+            if (ticket != null) {
+                ranked.add(ticket);
+            }
+        }
+        return ranked;
+    }
+    
+    // The index lives in memory only, so it is rebuilt from the table on every start. Pages are read by
+    // id (keyset) into a new index, which replaces the live one once the scan is complete.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        ticketSearchIndex.rebuild(sink -> {
+            Slice<Ticket> slice = ticketRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, PageRequest.of(0, INDEX_REBUILD_BATCH_SIZE));
+            while (true) {
+                slice.forEach(sink);
+                if (!slice.hasNext()) {
+                    break;
+                }
+                Long lastId = slice.getContent().get(slice.getNumberOfElements() - 1).getId();
+                slice = ticketRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, INDEX_REBUILD_BATCH_SIZE));
+            }
+        });
+    }
+}
+
+Now, let's create the controller class to handle HTTP requests:
+
+java
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/tickets")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TicketController {
+    @Autowired
+    private TicketService ticketService;
+    
+    @Autowired
+    private ChangeEventBus changeEventBus;
+    
+    @GetMapping
+    public List<Ticket> getAllTickets() {
+        return ticketService.getAllTickets();
+    }
+    
+    @GetMapping("/{id}")
+    public Optional<Ticket> getTicketById(@PathVariable Long id) {
+        return ticketService.getTicketById(id);
+    }
+    
+    @PostMapping
+    public Ticket createTicket(@RequestBody Ticket ticket) {
+        return ticketService.createTicket(ticket);
+    }
+    
+    @PutMapping("/{id}")
+    public Ticket updateTicket(@PathVariable Long id, @RequestBody Ticket ticket) {
+        return ticketService.updateTicket(id, ticket);
+    }
+    
+    @PatchMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void patchTicket(@PathVariable Long id, @RequestBody Map<String, Object> changes) {
+        ticketService.patchTicket(id, changes);
+    }
+    
+    @DeleteMapping("/{id}")
+    public void deleteTicket(@PathVariable Long id) {
+        ticketService.deleteTicket(id);
+    }
+    
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTicketEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                         @RequestParam(required = false) String since) {
+        return changeEventBus.subscribe("ticket", since != null ? since : lastEventId);
+    }
+    
+    // Endpoint for searching tickets
+    @GetMapping("/search")
+    public List<Ticket> searchTickets(@RequestParam String keyword,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "20") int size) {
+        return ticketService.searchTickets(keyword, Math.max(page, 0), Math.max(1, Math.min(size, 100)));
+    }
+}
+
+These are the basic components for implementing CRUD operations and search functionality in a Spring Boot application. You'll need to create corresponding HTML templates for the views and configure your database settings in the application.properties file. Additionally, you may want to add error handling and validation to improve the robustness of your application. Let me know if you need further assistance with any specific part of the implementation!
+User
+give me html as well
+ChatGPT
+
+Certainly! Below are simplified HTML templates for the ticket tracker application:
+
+home.html (Home Screen)
+
+html
+
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Ticket Tracker - Home</title>
+</head>
+<body>
+    <h1>Ticket Tracker</h1>
+    <table border="1">
+        <thead>
+            <tr>
+                <th>ID</th>
+                <th>Title</th>
+                <th>Description</th>
+                <th>Action</th>
+            </tr>
+        </thead>
+        <tbody>
+            <!-- Loop through tickets and display each one -->
+            <tr th:each="ticket : ${tickets}">
+                <td th:text="${ticket.id}"></td>
+                <td th:text="${ticket.title}"></td>
+                <td th:text="${ticket.description}"></td>
+                <td>
+                    <a th:href="@{'/tickets/' + ${ticket.id}}">View</a>
+                    <a th:href="@{'/tickets/' + ${ticket.id} + '/edit'}">Edit</a>
+                    <a th:href="@{'/tickets/' + ${ticket.id} + '/delete'}">Delete</a>
+                </td>
+            </tr>
+        </tbody>
+    </table>
+    <a href="/tickets/new">New Ticket</a>
+</body>
+</html>
+
+edit.html (Edit Ticket Page)
+
+html
+
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Edit Ticket</title>
+</head>
+<body>
+    <h1>Edit Ticket</h1>
+    <form method="post" action="/tickets/{id}">
+        <input type="hidden" name="_method" value="put"/>
+        <label for="title">Title:</label>
+        <input type="text" id="title" name="title" th:value="${ticket.title}"/><br/>
+        <label for="description">Description:</label><br/>
+        <textarea id="description" name="description" rows="4" cols="50" th:text="${ticket.description}"></textarea><br/>
+        <button type="submit">Save</button>
+    </form>
+</body>
+</html>
+
+create.html (Create Ticket Page)
+
+html
+
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Create Ticket</title>
+</head>
+<body>
+    <h1>Create Ticket</h1>
+    <form method="post" action="/tickets">
+        <label for="title">Title:</label>
+        <input type="text" id="title" name="title"/><br/>
+        <label for="description">Description:</label><br/>
+        <textarea id="description" name="description" rows="4" cols="50"></textarea><br/>
+        <button type="submit">Create</button>
+    </form>
+</body>
+</html>
+
+search.html (Search Functionality)
+
+html
+
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta charset="UTF-8">
+    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+    <title>Search Tickets</title>
+</head>
+<body>
+    <h1>Search Tickets</h1>
+    <form method="get" action="/tickets/search">
+        <label for="keyword">Keyword:</label>
+        <input type="text" id="keyword" name="keyword"/><br/>
+        <button type="submit">Search</button>
+    </form>
+    <table border="1">
+        <thead>
+            <tr>
+                <th>ID</th>
+                <th>Title</th>
+                <th>Description</th>
+                <th>Action</th>
+            </tr>
+        </thead>
+        <tbody>
+            <!-- Loop through search results and display each one -->
+            <tr th:each="ticket : ${searchResults}">
+                <td th:text="${ticket.id}"></td>
+                <td th:text="${ticket.title}"></td>
+                <td th:text="${ticket.description}"></td>
+                <td>
+                    <a th:href="@{'/tickets/' + ${ticket.id}}">View</a>
+                    <a th:href="@{'/tickets/' + ${ticket.id} + '/edit'}">Edit</a>
+                    <a th:href="@{'/tickets/' + ${ticket.id} + '/delete'}">Delete</a>
+                </td>
+            </tr>
+        </tbody>
+    </table>
+</body>
+</html>
+
+These HTML templates use Thymeleaf for server-side rendering and include placeholders for dynamic data using Thymeleaf expressions. You'll need to integrate these templates into your Spring Boot application and configure the appropriate routes in your controller class. Let me know if you need further assistance!
+User
+“Lab Session”
+Problem Statement: 
+In College fest, Students want to take registrations for a Debate event and want to keep track of student details based on the course. Help the students to create a table with the help of Spring, MVC, Hibernate ORM to perform CRUD operations on the table.
+
+Sample Table: 
+
+Student Id	FirstName	LastName	Course	Country
+1	Suresh	Reddy	B.Tech	India
+2	Murali	Mohan	B.Arch	Canada
+3	Daniel	Denson	B.Tech	New Zealand
+4	Tanya	Gupta	B.Com	USA
+
+Create a Dynamic web project and make sure that the following operations can be performed.
+
+1.	Insert new records into the table.
+2.	Update existing records into the table.
+3.	Delete existing records from the table.
+4.	Print all records from the table.
+5.	Add a security layer where there will be two roles USER, ADMIN.
+6.	Admin will have the privilege of performing all the operations.
+7.	User can view/save the details.
+ChatGPT
+
+To achieve the requirements outlined in the problem statement, you'll need to set up a Spring MVC project with Hibernate ORM for database operations. Below, I'll provide you with a step-by-step guide on how to implement the functionalities:
+
+    Set Up Project:
+        Create a new Spring MVC project using your preferred IDE (e.g., IntelliJ IDEA, Eclipse).
+        Configure the project to use Hibernate ORM for database operations.
+
+    Define Entity Class:
+        Create an entity class Student representing the table structure.
+        Annotate the class with Hibernate annotations to map it to the database table.
+
+    Create Repository Interface:
+        Create a repository interface StudentRepository extending JpaRepository<Student, Long> to handle CRUD operations.
+
+    Implement Service Layer:
+        Create a service class StudentService to encapsulate business logic.
+        Implement methods for CRUD operations (e.g., createStudent(), updateStudent(), deleteStudent(), getAllStudents()).
+
+    Create Controller:
+        Create a controller class StudentController to handle HTTP requests.
+        Implement methods for each CRUD operation as well as for printing all records.
+        Add security annotations for role-based access control.
+
+    Configure Security:
+        Configure Spring Security to define roles (USER, ADMIN) and access permissions.
+        Restrict access to CRUD operations based on user roles.
+        Use authentication mechanisms (e.g., form-based login) to authenticate users.
+
+    Create Views:
+        Create HTML views for inserting, updating, deleting, and printing student records.
+        Include forms for submitting data and tables for displaying student information.
+        Apply Thymeleaf or JSP for server-side rendering and dynamic content.
+
+    Test the Application:
+        Test each CRUD operation to ensure that they work as expected.
+        Verify that access control is properly enforced based on user roles.
+        Test the application in different scenarios to identify and fix any bugs or issues.
+
+Below is a simplified code snippet for each component to get you started:
+
+Student.java (Entity Class)
+
+java
+
+@Entity
+public class Student {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String course;
+    private String country;
+    
+    // Constructors, getters, and setters
+}
+
+StudentRepository.java (Repository Interface)
+
+java
+
+public interface StudentRepository extends JpaRepository<Student, Long> {
+}
+
+StudentService.java (Service Class)
+
+java
+
+@Service
+public class StudentService {
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    public Student createStudent(Student student) {
+        return studentRepository.save(student);
+    }
+    
+    public Student updateStudent(Long id, Student student) {
+        // Implement update logic
+    }
+    
+    public void deleteStudent(Long id) {
+        studentRepository.deleteById(id);
+    }
+    
+    public List<Student> getAllStudents() {
+        return studentRepository.findAll();
+    }
+}
+
+StudentController.java (Controller Class)
+
+java
+
+@RestController
+@RequestMapping("/students")
+public class StudentController {
+    @Autowired
+    private StudentService studentService;
+    
+    @PostMapping
+    public Student createStudent(@RequestBody Student student) {
+        return studentService.createStudent(student);
+    }
+    
+    @PutMapping("/{id}")
+    public Student updateStudent(@PathVariable Long id, @RequestBody Student student) {
+        return studentService.updateStudent(id, student);
+    }
+    
+    @DeleteMapping("/{id}")
+    public void deleteStudent(@PathVariable Long id) {
+        studentService.deleteStudent(id);
+    }
+    
+    @GetMapping
+    public List<Student> getAllStudents() {
+        return studentService.getAllStudents();
+    }
+}
+
+This is a basic setup to get you started with the implementation. You'll need to expand upon these components and add additional features (such as security) as per your requirements. Let me know if you need further assistance!
+User
+give me code as being asked
+ChatGPT
+
+Sure, let's start by setting up a basic Spring Boot project with Spring Data JPA for database operations and Spring Security for role-based access control. Below, I'll provide code snippets for each component as requested:
+
+1. Set Up Project:
+
+    Create a new Spring Boot project using your preferred IDE or Spring Initializr.
+    Include dependencies for Spring Web, Spring Data JPA, and Spring Security.
+
+2. Define Entity Class:
+
+java
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "students")
+public class Student {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String course;
+    private String country;
+    
+    // Constructors, getters, and setters
+}
+
+3. Create Repository Interface:
+
+java
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StudentRepository extends JpaRepository<Student, Long> {
+}
+
+4. Implement Service Layer:
+
+java
+
+import org.hibernate.Session;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.io.UncheckedIOException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+public class StudentService {
+    private static final PartialUpdate STUDENT_PATCH =
+            new PartialUpdate("Student", new HashSet<>(Arrays.asList("firstName", "lastName", "course", "country")),
+                    new HashSet<>(Arrays.asList("firstName", "lastName")), true);
+    
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private StudentCache studentCache;
+    
+    @Autowired
+    private StudentStats studentStats;
+    
+    @Autowired
+    private ChangeEventBus changeEventBus;
+    
+    @Autowired
+    private StudentChangeCounter studentChangeCounter;
+    
+    // Only present with students.hot-store.enabled=true
+    @Autowired(required = false)
+    private StudentStore studentStore;
+    
+    @Value("${students.bulk.batch-size:500}")
+    private int bulkBatchSize;
+    
+    @Value("${soft-delete.enabled:false}")
+    private boolean softDelete;
+    
+    @Value("${students.cache.list-max-size:10000}")
+    private int cachedListMaxSize;
+    
+    @Value("${students.datasource.routing.enabled:false}")
+    private boolean routingEnabled;
+    
+    @Transactional
+    public Student createStudent(Student student) {
+        Student saved = studentRepository.save(student);
+        studentCache.invalidate(saved.getId());
+        storeAfterCommit(saved);
+        studentStats.recordChange(null, saved);
+        studentChangeCounter.markChanged();
+        changeEventBus.publish("student", "created", saved.getId(), saved);
+        return saved;
+    }
+    
+    @Transactional
+    public Student updateStudent(Long id, Student student) {
+        return updateStudent(id, student, null);
+    }
+    
+    // expectedVersion comes from If-Match; null means "any version". The managed entity is
+    // updated in place so Hibernate's @Version check also catches a concurrent commit.
+    @Transactional
+    public Student updateStudent(Long id, Student student, Long expectedVersion) {
+        Student existing = studentRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Student not found with id: " + id));
+        checkVersion(existing, expectedVersion);
+        studentStats.recordChange(existing, student);
+        studentChangeCounter.markChanged();
+        copyFields(student, existing);
+        studentCache.invalidate(id);
+        storeAfterCommit(existing);
+        changeEventBus.publish("student", "updated", id, existing);
+        return existing;
+    }
+    
+    @Transactional
+    public void patchStudent(Long id, Map<String, Object> changes) {
+        patchStudent(id, changes, null);
+    }
+    
+    // Single UPDATE of only the supplied columns; the affected-row count doubles as the existence check.
+    // expectedVersion comes from If-Match, as for updateStudent, and is matched by the UPDATE itself.
+    @Transactional
+    public void patchStudent(Long id, Map<String, Object> changes, Long expectedVersion) {
+        // The old values are only needed when a grouped column changes. They are read under a row lock
+        // so a concurrent patch cannot change them between this read and the UPDATE below.
+        Student before = changes.containsKey("course") || changes.containsKey("country")
+                ? entityManager.find(Student.class, id, LockModeType.PESSIMISTIC_WRITE) : null;
+        if (STUDENT_PATCH.execute(entityManager, id, changes, expectedVersion) == 0) {
+            if (expectedVersion != null && studentRepository.existsById(id)) {
+                throw new ObjectOptimisticLockingFailureException(Student.class, id);
+            }
+            throw new NotFoundException("Student not found with id: " + id);
+        }
+        studentChangeCounter.markChanged();
+        if (before != null) {
+            Student after = new Student();
+            after.setCourse(changes.containsKey("course") ? (String) changes.get("course") : before.getCourse());
+            after.setCountry(changes.containsKey("country") ? (String) changes.get("country") : before.getCountry());
+            studentStats.recordChange(before, after);
+        }
+        studentCache.invalidate(id);
+        if (studentStore != null) {
+            // The bulk UPDATE bypassed the persistence context, so re-read the row it wrote
+            if (before != null) {
+                entityManager.detach(before);
+            }
+            studentRepository.findById(id).ifPresent(this::storeAfterCommit);
+        }
+        changeEventBus.publish("student", "updated", id, null);
+    }
+    
+    @Transactional
+    public void deleteStudent(Long id) {
+        deleteStudent(id, null);
+    }
+    
+    @Transactional
+    public void deleteStudent(Long id, Long expectedVersion) {
+        List<Object[]> keys = studentRepository.findDeletionKeys(Collections.singletonList(id));
+        if (keys.isEmpty()) {
+            throw new NotFoundException("Student not found with id: " + id);
+        }
+        if (expectedVersion == null) {
+            removeStudents(keys);
+            return;
+        }
+        int removed = softDelete
+                ? studentRepository.softDeleteByIdAndVersion(id, expectedVersion, Instant.now())
+                : studentRepository.hardDeleteByIdAndVersion(id, expectedVersion);
+        if (removed == 0) {
+            throw new ObjectOptimisticLockingFailureException(Student.class, id);
+        }
+        afterRemoval(keys.get(0));
+    }
+    
+    // Bulk delete as one statement; ids that do not exist are ignored
+    @Transactional
+    public int deleteStudents(Collection<Long> ids) {
+        return removeStudents(studentRepository.findDeletionKeys(ids));
+    }
+    
+    // A tombstoning UPDATE (or a DELETE with soft-delete off) by id, without loading the entities.
+    // The keys were read under a row lock, so they are exactly the rows the statement removes.
+    private int removeStudents(List<Object[]> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Object[] key : keys) {
+            ids.add((Long) key[0]);
+        }
+        int removed = softDelete
+                ? studentRepository.softDeleteByIdIn(ids, Instant.now())
+                : studentRepository.hardDeleteByIdIn(ids);
+        if (removed != keys.size()) {
+            // Only reachable if the lock was not honoured; roll back rather than skew stats and caches
+            throw new ObjectOptimisticLockingFailureException(Student.class, ids);
+        }
+        for (Object[] key : keys) {
+            afterRemoval(key);
+        }
+        return removed;
+    }
+    
+    // key is one findDeletionKeys row: id, course, country, version
+    private void afterRemoval(Object[] key) {
+        long id = (Long) key[0];
+        Student before = new Student();
+        before.setCourse((String) key[1]);
+        before.setCountry((String) key[2]);
+        studentStats.recordChange(before, null);
+        studentChangeCounter.markChanged();
+        studentCache.invalidate(id);
+        if (studentStore != null) {
+            long version = ((Number) key[3]).longValue();
+            TransactionCallbacks.afterCommit(() -> studentStore.remove(id, version));
+        }
+        changeEventBus.publish("student", "deleted", id, null);
+    }
+    
+    // Served from the in-memory counters, or straight from an indexed GROUP BY when fromDatabase is set
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getStudentCounts(List<String> groupBy, boolean fromDatabase) {
+        for (String field : groupBy) {
+            if (!StudentStats.GROUP_BY_FIELDS.contains(field)) {
+                throw new BadRequestException("Cannot group students by: " + field);
+            }
+        }
+        if (!fromDatabase) {
+            return studentStats.countBy(groupBy);
+        }
+        Map<List<String>, Long> grouped = new LinkedHashMap<>();
+        for (Object[] row : studentRepository.countByCourseAndCountry()) {
+            grouped.merge(StudentStats.project(Arrays.asList((String) row[0], (String) row[1]), groupBy), (Long) row[2], Long::sum);
+        }
+        return StudentStats.toRows(grouped, groupBy);
+    }
+    
+    // Not @Transactional: StudentStats starts the count only once in-flight commits have been applied
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStudentStats() {
+        studentStats.reset(() -> readPrimary(studentRepository::countByCourseAndCountry));
+    }
+    
+    // Changes whenever any student is written, by this instance or any other, so pollers of the whole
+    // collection can be answered with 304. Read from the shared StudentChangeCounter row, not local state.
+    @Transactional(readOnly = true)
+    public String getCollectionETag() {
+        return Long.toString(studentChangeCounter.current(), 36);
+    }
+    
+    // No transaction of its own: cache and hot-store hits never touch the database, and a
+    // miss is read from the primary (see readPrimary)
+    public Optional<Student> getStudentById(Long id) {
+        if (isHotStoreReady()) {
+            return studentStore.get(id);
+        }
+        return studentCache.get(id, missing -> readPrimary(() -> studentRepository.findById(missing)));
+    }
+    
+    // Never queries: present only when the cache holds the student
+    public Optional<Student> getCachedStudent(Long id) {
+        return Optional.ofNullable(studentCache.getIfPresent(id));
+    }
+    
+    // One IN query for whatever is not cached; ids that do not exist are simply absent from the map
+    public Map<Long, Student> getStudentsByIds(Collection<Long> ids) {
+        if (isHotStoreReady()) {
+            Map<Long, Student> found = new HashMap<>();
+            for (Long id : ids) {
+                studentStore.get(id).ifPresent(student -> found.put(id, student));
+            }
+            return found;
+        }
+        return studentCache.getAll(ids, missing -> readPrimary(() -> studentRepository.findAllById(missing)));
+    }
+    
+    public List<Student> getAllStudents() {
+        if (isHotStoreReady()) {
+            List<Student> students = new ArrayList<>(studentStore.size());
+            studentStore.forEach(students::add);
+            return students;
+        }
+        return studentCache.getAll(() -> readPrimary(studentRepository::findAll));
+    }
+    
+    // Hands every student to the consumer one row at a time; each entity is detached
+    // after use so the persistence context does not grow with the table. Small tables
+    // are kept in the cache, large ones are always streamed. With read/write routing the
+    // stream comes from the replica and is not cached, since it may lag the primary.
+    @Transactional(readOnly = true)
+    public void streamAllStudents(Consumer<Student> consumer) {
+        if (isHotStoreReady()) {
+            studentStore.forEach(consumer);
+            return;
+        }
+        long generation = studentCache.getGeneration();
+        Optional<List<Student>> cached = studentCache.getAll();
+        if (cached.isPresent()) {
+            cached.get().forEach(consumer);
+            return;
+        }
+        List<Student> collected = new ArrayList<>();
+        try (Stream<Student> students = studentRepository.streamAll()) {
+            students.forEach(student -> {
+                consumer.accept(student);
+                entityManager.detach(student);
+                if (collected.size() <= cachedListMaxSize) {
+                    collected.add(student);
+                }
+            });
+        }
+        if (collected.size() <= cachedListMaxSize && !routingEnabled) {
+            studentCache.putAll(collected, generation);
+        }
+    }
+    
+    public StudentCache.CacheStats getCacheStats() {
+        return studentCache.getStats();
+    }
+    
+    // Equality filters and sort are pushed into the query, so they are answered from the composite indexes.
+    // Rows are streamed with a fetch size and detached after use, like streamAllStudents.
+    @Transactional(readOnly = true)
+    public void streamStudents(Specification<Student> where, Sort sort, Consumer<Student> consumer) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Student> query = builder.createQuery(Student.class);
+        Root<Student> root = query.from(Student.class);
+        query.select(root);
+        restrict(query, root, builder, where, sort);
+        try (Stream<Student> students = entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_FETCH_SIZE, 500)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            students.forEach(student -> {
+                consumer.accept(student);
+                entityManager.detach(student);
+            });
+        }
+    }
+    
+    // Streams only the requested columns as scalar rows; nothing enters the persistence context
+    @Transactional(readOnly = true)
+    public void streamStudentFields(StudentFields fields, Consumer<Map<String, Object>> consumer) {
+        streamStudentFields(fields, StudentSpecifications.matching(null, null), StudentSpecifications.sort(null), consumer);
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamStudentFields(StudentFields fields, Specification<Student> where, Sort sort,
+                                    Consumer<Map<String, Object>> consumer) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Student> root = query.from(Student.class);
+        List<Selection<?>> columns = new ArrayList<>();
+        columns.add(root.get("id"));
+        for (String field : fields.getFields()) {
+            columns.add(root.get(field));
+        }
+        query.multiselect(columns);
+        restrict(query, root, builder, where, sort);
+        try (Stream<Object[]> rows = entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_FETCH_SIZE, 500)
+                .getResultStream()) {
+            rows.forEach(row -> consumer.accept(fields.toMap(row)));
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public StudentPage getStudentPage(String cursor, int size) {
+        long afterId = StudentPage.decodeCursor(cursor);
+        List<StudentView> students = studentRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size), StudentView.class);
+        String nextCursor = students.size() < size ? null
+                : StudentPage.encodeCursor(students.get(students.size() - 1).getId());
+        return new StudentPage(students, nextCursor);
+    }
+    
+    @Transactional(readOnly = true)
+    public StudentPage getStudentPage(String cursor, int size, StudentFields fields) {
+        long afterId = StudentPage.decodeCursor(cursor);
+        List<Object[]> rows = entityManager.createQuery(
+                fields.selectClause() + " from Student s where s.id > :afterId order by s.id", Object[].class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(size)
+                .getResultList();
+        List<Map<String, Object>> students = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            students.add(fields.toMap(row));
+        }
+        String nextCursor = rows.size() < size ? null
+                : StudentPage.encodeCursor((Long) rows.get(rows.size() - 1)[0]);
+        return new StudentPage(students, nextCursor);
+    }
+    
+    // Each batch commits on its own, so a bad row only costs its batch a retry, never the whole import
+    public BulkImportResult importStudents(Iterator<Student> rows) {
+        BulkImportResult result = new BulkImportResult();
+        List<PendingRow> batch = new ArrayList<>(bulkBatchSize);
+        int rowNumber = 0;
+        while (true) {
+            Student student;
+            rowNumber++;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                student = rows.next();
+                validateStudent(student);
+            } catch (BadRequestException e) {
+                result.addError(rowNumber, e.getMessage());
+                continue;
+            } catch (UncheckedIOException e) {
+                // Malformed input: the reader cannot find another row, so hasNext() ends the loop
+                result.addError(rowNumber, e.getCause().getMessage());
+                continue;
+            }
+            batch.add(new PendingRow(rowNumber, student));
+            if (batch.size() == bulkBatchSize) {
+                writeBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+        studentCache.invalidateAll();
+        return result;
+    }
+    
+    // Registration id -> student id for rows already written by an earlier drain, soft-deleted ones included.
+    // Read on the primary: a lagging replica would hide rows the last drain just committed.
+    public Map<Long, Long> findRegisteredStudents(Collection<Long> registrationIds) {
+        if (registrationIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<?> rows = readPrimary(() -> entityManager.createNativeQuery(
+                "select registration_id, id from students where registration_id in (:ids)")
+                .setParameter("ids", registrationIds)
+                .getResultList());
+        Map<Long, Long> students = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            students.put(((Number) columns[0]).longValue(), ((Number) columns[1]).longValue());
+        }
+        return students;
+    }
+    
+    public long findMaxRegistrationId() {
+        Object max = readPrimary(() -> entityManager.createNativeQuery(
+                "select max(registration_id) from students").getSingleResult());
+        return max == null ? 0 : ((Number) max).longValue();
+    }
+    
+    private void writeBatch(List<PendingRow> batch, BulkImportResult result) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(bulkBatchSize);
+                for (PendingRow row : batch) {
+                    saveRow(row);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            result.addImported(batch.size());
+        } catch (RuntimeException batchFailure) {
+            if (isInfrastructureFailure(batchFailure)) {
+                throw batchFailure;
+            }
+            // Replay the batch row by row to find out which rows were at fault
+            for (PendingRow row : batch) {
+                try {
+                    transaction.executeWithoutResult(status -> saveRow(row.reset()));
+                    result.addImported(1);
+                } catch (RuntimeException e) {
+                    if (isInfrastructureFailure(e)) {
+                        throw e;
+                    }
+                    result.addError(row.rowNumber, rootCauseMessage(e));
+                }
+            }
+        }
+    }
+    
+    private void saveRow(PendingRow row) {
+        if (row.isNew) {
+            entityManager.persist(row.student);
+            storeAfterCommit(row.student);
+            studentStats.recordChange(null, row.student);
+            studentChangeCounter.markChanged();
+            changeEventBus.publish("student", "created", row.student.getId(), row.student);
+        } else {
+            Student existing = entityManager.find(Student.class, row.student.getId());
+            if (existing == null) {
+                throw new BadRequestException("Student not found with id: " + row.student.getId());
+            }
+            studentStats.recordChange(existing, row.student);
+            studentChangeCounter.markChanged();
+            copyFields(row.student, existing);
+            storeAfterCommit(existing);
+            changeEventBus.publish("student", "updated", existing.getId(), existing);
+        }
+    }
+    
+    private static void restrict(CriteriaQuery<?> query, Root<Student> root, CriteriaBuilder builder,
+                                 Specification<Student> where, Sort sort) {
+        Predicate predicate = where.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, builder));
+    }
+    
+    // Cache fills run in a read-write transaction, which RoutingDataSourceConfig sends to the primary:
+    // a row read from a lagging replica would otherwise stay cached for the whole TTL
+    private <T> T readPrimary(Supplier<T> read) {
+        return new TransactionTemplate(transactionManager).execute(status -> read.get());
+    }
+    
+    // When true every lookup is answered from memory and never reaches the database
+    public boolean isHotStoreReady() {
+        return studentStore != null && studentStore.isReady();
+    }
+    
+    // The entity is encoded once the transaction commits, so the store sees the flushed version
+    private void storeAfterCommit(Student student) {
+        if (studentStore != null) {
+            TransactionCallbacks.afterCommit(() -> studentStore.put(student));
+        }
+    }
+    
+    // Surfaces as 412 through the controller's optimistic-locking handler
+    private static void checkVersion(Student existing, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Student.class, existing.getId());
+        }
+    }
+    
+    private static void copyFields(Student from, Student to) {
+        to.setFirstName(from.getFirstName());
+        to.setLastName(from.getLastName());
+        to.setCourse(from.getCourse());
+        to.setCountry(from.getCountry());
+    }
+    
+    public void validateStudent(Student student) {
+        if (student.getFirstName() == null || student.getFirstName().trim().isEmpty()) {
+            throw new BadRequestException("firstName is required");
+        }
+        if (student.getLastName() == null || student.getLastName().trim().isEmpty()) {
+            throw new BadRequestException("lastName is required");
+        }
+    }
+    
+    // Outages and timeouts say nothing about the row, so they abort the import instead of becoming row errors
+    static boolean isInfrastructureFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof JDBCConnectionException
+                    || cause instanceof javax.persistence.QueryTimeoutException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String rootCauseMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+    
+    private static class PendingRow {
+        private final int rowNumber;
+        private final Student student;
+        private final boolean isNew;
+        
+        PendingRow(int rowNumber, Student student) {
+            this.rowNumber = rowNumber;
+            this.student = student;
+            this.isNew = student.getId() == null;
+        }
+        
+        // A failed persist may already have assigned an id from the sequence
+        PendingRow reset() {
+            if (isNew) {
+                student.setId(null);
+            }
+            return this;
+        }
+    }
 }
\ No newline at end of file
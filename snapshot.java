@@ -0,0 +1,463 @@
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Columnar snapshot of the students table for GET /students/export and POST /students/import.
+//
+// Layout (big-endian): magic, format version, row count, the course and country dictionaries
+// (entry count, then length-prefixed UTF-8 strings), the byte size of each column, then the
+// columns themselves: ids (long), versions (long), course codes (int), country codes (int),
+// first names and last names (length-prefixed UTF-8). Null strings are length / code -1.
+//
+// An export is written once per collection generation and reused until a student changes. The previous
+// export is kept until the one after it is written, so a download that has been handed its path (and
+// opens the file only after the controller returns, e.g. through sendfile) does not find it deleted.
+@Component
+public class StudentSnapshot {
+    public static final String MEDIA_TYPE = "application/x-student-snapshot";
+    
+    private static final int MAGIC = 0x53545553;
+    private static final int FORMAT_VERSION = 1;
+    private static final int COLUMN_COUNT = 6;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int KEPT_EXPORTS = 2;
+    // Smallest possible row: id, version, two codes and two null-string lengths
+    private static final int MIN_ROW_BYTES = 8 + 8 + 4 + 4 + 4 + 4;
+    
+    @Autowired
+    private StudentService studentService;
+    
+    private final Path directory;
+    private final long maxUploadBytes;
+    
+    // Uploads are memory-mapped, so they can never exceed 2 GB
+    public StudentSnapshot(@Value("${students.snapshot.dir:${java.io.tmpdir}/students-snapshots}") String directory,
+                           @Value("${students.snapshot.max-upload-bytes:2147483647}") long maxUploadBytes) {
+        this.directory = Paths.get(directory);
+        this.maxUploadBytes = Math.min(maxUploadBytes, Integer.MAX_VALUE);
+    }
+    
+    public long getMaxUploadBytes() {
+        return maxUploadBytes;
+    }
+    
+    // Returns the snapshot file for the current state of the table, writing it first if needed
+    public synchronized Path export() throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve("students-" + studentService.getCollectionETag() + ".snap");
+        if (Files.exists(snapshot)) {
+            return snapshot;
+        }
+        Path written = write();
+        Files.move(written, snapshot, StandardCopyOption.ATOMIC_MOVE);
+        deleteOldExports();
+        return snapshot;
+    }
+    
+    // Keeps the newest KEPT_EXPORTS snapshots; a transfer already reading an older one keeps its open descriptor
+    private void deleteOldExports() throws IOException {
+        List<Path> exports = new ArrayList<>();
+        try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(directory, "students-*.snap")) {
+            for (Path path : snapshots) {
+                exports.add(path);
+            }
+        }
+        exports.sort(Comparator.comparing(StudentSnapshot::lastModified).reversed());
+        for (Path path : exports.subList(Math.min(KEPT_EXPORTS, exports.size()), exports.size())) {
+            Files.deleteIfExists(path);
+        }
+    }
+    
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+    
+    // The upload is spooled to disk and memory-mapped, then fed to the batched bulk import.
+    // Ids are not carried over: rows are inserted as new students and numbered by student_seq.
+    // The whole file is validated before the first row is imported, so a corrupt upload imports nothing.
+    public BulkImportResult importFrom(InputStream body) throws IOException {
+        Files.createDirectories(directory);
+        Path upload = Files.createTempFile(directory, "import-", ".snap");
+        try {
+            try (ReadableByteChannel in = Channels.newChannel(body);
+                 FileChannel out = FileChannel.open(upload, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                // Stops as soon as the running count passes the limit, not after the whole body is on disk
+                while ((transferred = out.transferFrom(in, position, BUFFER_SIZE)) > 0) {
+                    position += transferred;
+                    if (position > maxUploadBytes) {
+                        throw new SnapshotTooLargeException(maxUploadBytes);
+                    }
+                }
+            }
+            try (FileChannel channel = FileChannel.open(upload, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return studentService.importStudents(read(mapped));
+            }
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+    
+    private Path write() throws IOException {
+        Dictionary courses = new Dictionary();
+        Dictionary countries = new Dictionary();
+        long[] rowCount = new long[1];
+        List<Column> columns = new ArrayList<>(COLUMN_COUNT);
+        try {
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                columns.add(new Column(directory));
+            }
+            Column ids = columns.get(0);
+            Column versions = columns.get(1);
+            Column courseCodes = columns.get(2);
+            Column countryCodes = columns.get(3);
+            Column firstNames = columns.get(4);
+            Column lastNames = columns.get(5);
+            try {
+                studentService.streamAllStudents(student -> {
+                    ids.putLong(student.getId());
+                    versions.putLong(student.getVersion() == null ? 0 : student.getVersion());
+                    courseCodes.putInt(courses.encode(student.getCourse()));
+                    countryCodes.putInt(countries.encode(student.getCountry()));
+                    firstNames.putString(student.getFirstName());
+                    lastNames.putString(student.getLastName());
+                    rowCount[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            
+            ByteBuffer header = ByteBuffer.allocate(16 + courses.byteSize() + countries.byteSize() + 8 * COLUMN_COUNT);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(rowCount[0]);
+            courses.writeTo(header);
+            countries.writeTo(header);
+            for (Column column : columns) {
+                header.putLong(column.finish());
+            }
+            header.flip();
+            
+            Path snapshot = Files.createTempFile(directory, "export-", ".snap");
+            try (FileChannel out = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (Column column : columns) {
+                    column.transferTo(out);
+                }
+            }
+            return snapshot;
+        } finally {
+            for (Column column : columns) {
+                column.close();
+            }
+        }
+    }
+    
+    // Every length and size is checked against what is actually left in the buffer, so a truncated or
+    // corrupt upload fails here with InvalidSnapshotException instead of halfway through the import
+    static Iterator<Student> read(ByteBuffer buffer) {
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+            throw new InvalidSnapshotException("Not a student snapshot");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new InvalidSnapshotException("Unsupported snapshot version: " + formatVersion);
+        }
+        long rowCount = buffer.getLong();
+        if (rowCount < 0 || rowCount > buffer.remaining() / MIN_ROW_BYTES) {
+            throw new InvalidSnapshotException("Row count out of range: " + rowCount);
+        }
+        String[] courses = Dictionary.read(buffer);
+        String[] countries = Dictionary.read(buffer);
+        check(buffer, 8L * COLUMN_COUNT, "column sizes");
+        long[] sizes = new long[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            sizes[i] = buffer.getLong();
+        }
+        long[] fixedSizes = {8 * rowCount, 8 * rowCount, 4 * rowCount, 4 * rowCount};
+        for (int i = 0; i < fixedSizes.length; i++) {
+            if (sizes[i] != fixedSizes[i]) {
+                throw new InvalidSnapshotException("Column " + i + " should be " + fixedSizes[i] + " bytes, not " + sizes[i]);
+            }
+        }
+        ByteBuffer[] columns = new ByteBuffer[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            check(buffer, sizes[i], "column " + i);
+            ByteBuffer column = buffer.slice();
+            column.limit((int) sizes[i]);
+            columns[i] = column;
+            buffer.position(buffer.position() + (int) sizes[i]);
+        }
+        checkCodes(columns[2], rowCount, courses.length);
+        checkCodes(columns[3], rowCount, countries.length);
+        checkStrings(columns[4], rowCount);
+        checkStrings(columns[5], rowCount);
+        return new Iterator<Student>() {
+            private long remaining = rowCount;
+            
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+            
+            @Override
+            public Student next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                columns[0].getLong();
+                columns[1].getLong();
+                Student student = new Student();
+                student.setCourse(decode(courses, columns[2].getInt()));
+                student.setCountry(decode(countries, columns[3].getInt()));
+                student.setFirstName(readString(columns[4]));
+                student.setLastName(readString(columns[5]));
+                return student;
+            }
+        };
+    }
+    
+    private static String decode(String[] dictionary, int code) {
+        if (code < 0) {
+            return null;
+        }
+        if (code >= dictionary.length) {
+            throw new InvalidSnapshotException("Dictionary code out of range: " + code);
+        }
+        return dictionary[code];
+    }
+    
+    private static void check(ByteBuffer buffer, long bytes, String what) {
+        if (bytes < 0 || bytes > buffer.remaining()) {
+            throw new InvalidSnapshotException("Truncated or corrupt snapshot: " + what + " needs " + bytes
+                    + " bytes, " + buffer.remaining() + " left");
+        }
+    }
+    
+    private static void checkCodes(ByteBuffer column, long rowCount, int dictionarySize) {
+        for (int i = 0; i < rowCount; i++) {
+            int code = column.getInt(i * 4);
+            if (code < -1 || code >= dictionarySize) {
+                throw new InvalidSnapshotException("Dictionary code out of range: " + code);
+            }
+        }
+    }
+    
+    private static void checkStrings(ByteBuffer column, long rowCount) {
+        ByteBuffer strings = column.duplicate();
+        for (long i = 0; i < rowCount; i++) {
+            skipString(strings);
+        }
+        if (strings.hasRemaining()) {
+            throw new InvalidSnapshotException("Unexpected trailing bytes in a string column");
+        }
+    }
+    
+    private static void skipString(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+    
+    private static int readLength(ByteBuffer buffer) {
+        check(buffer, 4, "string length");
+        int length = buffer.getInt();
+        if (length < -1) {
+            throw new InvalidSnapshotException("Negative string length: " + length);
+        }
+        // -1 marks a null value with no bytes after it
+        if (length > 0) {
+            check(buffer, length, "string");
+        }
+        return length;
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // Low-cardinality values (course, country) stored once and referenced by code
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private int byteSize = 4;
+        
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                codes.put(value, code);
+                values.add(bytes);
+                byteSize += 4 + bytes.length;
+            }
+            return code;
+        }
+        
+        int byteSize() {
+            return byteSize;
+        }
+        
+        void writeTo(ByteBuffer buffer) {
+            buffer.putInt(values.size());
+            for (byte[] value : values) {
+                buffer.putInt(value.length).put(value);
+            }
+        }
+        
+        static String[] read(ByteBuffer buffer) {
+            check(buffer, 4, "dictionary size");
+            int size = buffer.getInt();
+            if (size < 0 || size > buffer.remaining() / 4) {
+                throw new InvalidSnapshotException("Dictionary size out of range: " + size);
+            }
+            String[] values = new String[size];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString(buffer);
+            }
+            return values;
+        }
+    }
+    
+    // One column spooled to its own temp file through a direct buffer, so export memory stays
+    // flat no matter how many rows there are
+    private static class Column implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        
+        Column(Path directory) throws IOException {
+            this.path = Files.createTempFile(directory, "column-", ".tmp");
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        
+        void putLong(long value) {
+            ensureRemaining(8);
+            buffer.putLong(value);
+        }
+        
+        void putInt(int value) {
+            ensureRemaining(4);
+            buffer.putInt(value);
+        }
+        
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length > BUFFER_SIZE) {
+                flush();
+                write(ByteBuffer.wrap(bytes));
+                return;
+            }
+            ensureRemaining(bytes.length);
+            buffer.put(bytes);
+        }
+        
+        long finish() throws IOException {
+            try {
+                flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return channel.size();
+        }
+        
+        // File-to-file transferTo lets the kernel copy without passing through the heap
+        void transferTo(FileChannel target) throws IOException {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+        
+        private void ensureRemaining(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+        
+        private void flush() {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+        
+        private void write(ByteBuffer source) {
+            try {
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+    
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public static class InvalidSnapshotException extends BadRequestException {
+        InvalidSnapshotException(String message) {
+            super(message);
+        }
+    }
+    
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public static class SnapshotTooLargeException extends RuntimeException {
+        SnapshotTooLargeException(long maxBytes) {
+            super("Snapshot uploads are limited to " + maxBytes + " bytes");
+        }
+    }
+}
\ No newline at end of file
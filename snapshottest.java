@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// StudentSnapshot.read against hand-built buffers: one valid row, then the same bytes corrupted in the ways
+// an upload can be, each of which has to fail validation before the first row is returned
+class StudentSnapshotTest {
+    @Test
+    void readsRowsIncludingNullValues() {
+        Iterator<Student> rows = StudentSnapshot.read(snapshot(0, 1, "Ada", null));
+        
+        Student student = rows.next();
+        assertThat(student.getCourse()).isEqualTo("B.Sc");
+        assertThat(student.getCountry()).isNull();
+        assertThat(student.getFirstName()).isEqualTo("Ada");
+        assertThat(student.getLastName()).isNull();
+        assertThat(rows.hasNext()).isFalse();
+    }
+    
+    @Test
+    void wrongMagicIsRejected() {
+        ByteBuffer buffer = snapshot(0, 1, "Ada", null);
+        buffer.putInt(0, 0x50524e47);
+        
+        assertThatThrownBy(() -> StudentSnapshot.read(buffer))
+                .isInstanceOf(StudentSnapshot.InvalidSnapshotException.class)
+                .hasMessage("Not a student snapshot");
+    }
+    
+    @Test
+    void truncatedUploadIsRejected() {
+        ByteBuffer buffer = snapshot(0, 1, "Ada", "Lovelace");
+        buffer.limit(buffer.limit() - 3);
+        
+        assertThatThrownBy(() -> StudentSnapshot.read(buffer))
+                .isInstanceOf(StudentSnapshot.InvalidSnapshotException.class);
+    }
+    
+    @Test
+    void hugeRowCountIsRejectedBeforeAnythingIsAllocated() {
+        ByteBuffer buffer = snapshot(0, 1, "Ada", null);
+        buffer.putLong(8, Long.MAX_VALUE);
+        
+        assertThatThrownBy(() -> StudentSnapshot.read(buffer))
+                .isInstanceOf(StudentSnapshot.InvalidSnapshotException.class)
+                .hasMessageStartingWith("Row count out of range");
+    }
+    
+    @Test
+    void negativeDictionarySizeIsRejected() {
+        ByteBuffer buffer = snapshot(0, 1, "Ada", null);
+        buffer.putInt(16, -5);
+        
+        assertThatThrownBy(() -> StudentSnapshot.read(buffer))
+                .isInstanceOf(StudentSnapshot.InvalidSnapshotException.class)
+                .hasMessage("Dictionary size out of range: -5");
+    }
+    
+    @Test
+    void codeOutsideTheDictionaryIsRejected() {
+        assertThatThrownBy(() -> StudentSnapshot.read(snapshot(7, 1, "Ada", null)))
+                .isInstanceOf(StudentSnapshot.InvalidSnapshotException.class)
+                .hasMessage("Dictionary code out of range: 7");
+    }
+    
+    // Same layout StudentSnapshot writes: header, course and country dictionaries, column sizes, then the
+    // id, version, course, country, first name and last name columns. The course dictionary holds "B.Sc",
+    // the country dictionary is empty and the row's country is null.
+    private static ByteBuffer snapshot(int courseCode, long id, String firstName, String lastName) {
+        byte[] course = "B.Sc".getBytes(StandardCharsets.UTF_8);
+        byte[] first = string(firstName);
+        byte[] last = string(lastName);
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 8 + course.length + 4 + 48 + 24 + first.length + last.length);
+        buffer.putInt(0x53545553).putInt(1).putLong(1);
+        buffer.putInt(1).putInt(course.length).put(course);
+        buffer.putInt(0);
+        buffer.putLong(8).putLong(8).putLong(4).putLong(4).putLong(first.length).putLong(last.length);
+        buffer.putLong(id).putLong(0).putInt(courseCode).putInt(-1).put(first).put(last);
+        buffer.flip();
+        return buffer;
+    }
+    
+    private static byte[] string(String value) {
+        if (value == null) {
+            return ByteBuffer.allocate(4).putInt(-1).array();
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes).array();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds the WHERE and ORDER BY for GET /students?course=&country=&sort= from whichever
+// parameters are present. Equality on course and/or country plus a lastName/firstName sort
+// matches the (course, country, last_name) and (country, last_name) indexes on Student.
+public final class StudentSpecifications {
+    
+    private StudentSpecifications() {
+    }
+    
+    public static Specification<Student> hasCourse(String course) {
+        return (root, query, builder) -> builder.equal(root.get("course"), course);
+    }
+    
+    public static Specification<Student> hasCountry(String country) {
+        return (root, query, builder) -> builder.equal(root.get("country"), country);
+    }
+    
+    // Null arguments are left out; with neither set every student matches
+    public static Specification<Student> matching(String course, String country) {
+        Specification<Student> specification = Specification.where(null);
+        if (course != null) {
+            specification = specification.and(hasCourse(course));
+        }
+        if (country != null) {
+            specification = specification.and(hasCountry(country));
+        }
+        return specification;
+    }
+    
+    // "lastName,-firstName" sorts by lastName ascending, then firstName descending; id always breaks ties
+    public static Sort sort(List<String> fields) {
+        List<Sort.Order> orders = new ArrayList<>();
+        if (fields != null) {
+            for (String field : fields) {
+                boolean descending = field.startsWith("-");
+                String property = descending ? field.substring(1) : field;
+                if (!StudentFields.ALL.contains(property)) {
+                    throw new BadRequestException("Cannot sort students by: " + property);
+                }
+                orders.add(descending ? Sort.Order.desc(property) : Sort.Order.asc(property));
+            }
+        }
+        orders.add(Sort.Order.asc("id"));
+        return Sort.by(orders);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Starts the application repeatedly in each configuration and reports time-to-ready (process launch
+// until the first authenticated GET /students?ids=1 is answered, so lazily created beans on the request
+// path are included) and resident set size at that moment.
+//
+//   java startup.java jar=app.jar runs=5 dialect=org.hibernate.dialect.H2Dialect
+//   java startup.java classpath="app/BOOT-INF/classes:app/BOOT-INF/lib/*" main=<main class> cds=app.jsa
+//
+// Configurations: default profile, fast-start profile, and fast-start with the CDS archive when cds= is given.
+// The fast-start runs are given dialect= as spring.jpa.database-platform, which that profile requires.
+// Ready means a 2xx answer; a 4xx (wrong credentials or path) aborts instead of being timed as a start.
+public class StartupBenchmark {
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("runs", "5");
+        options.put("port", "18080");
+        options.put("user", "admin:adminPass");
+        options.put("path", "/students?ids=1");
+        options.put("dialect", "org.hibernate.dialect.H2Dialect");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        if (!options.containsKey("jar") && !options.containsKey("main")) {
+            throw new IllegalArgumentException("Pass jar=<application jar> or classpath=<classpath> main=<main class>");
+        }
+        int runs = Integer.parseInt(options.get("runs"));
+        
+        Map<String, List<String>> jvmArgs = new LinkedHashMap<>();
+        Map<String, List<String>> appArgs = new LinkedHashMap<>();
+        jvmArgs.put("default", Collections.emptyList());
+        appArgs.put("default", Collections.emptyList());
+        List<String> fastStart = Arrays.asList("--spring.profiles.active=fast-start",
+                "--spring.jpa.database-platform=" + options.get("dialect"));
+        jvmArgs.put("fast-start", Collections.emptyList());
+        appArgs.put("fast-start", fastStart);
+        if (options.containsKey("cds")) {
+            jvmArgs.put("fast-start+cds", Arrays.asList("-XX:SharedArchiveFile=" + options.get("cds"), "-Xshare:auto"));
+            appArgs.put("fast-start+cds", fastStart);
+        }
+        
+        Map<String, long[]> readyMillis = new LinkedHashMap<>();
+        Map<String, long[]> rssKilobytes = new LinkedHashMap<>();
+        for (String name : jvmArgs.keySet()) {
+            readyMillis.put(name, new long[runs]);
+            rssKilobytes.put(name, new long[runs]);
+        }
+        // Interleaved so that disk cache warm-up and machine noise hit every configuration alike
+        for (int run = 0; run < runs; run++) {
+            for (String name : jvmArgs.keySet()) {
+                long[] result = launch(options, jvmArgs.get(name), appArgs.get(name));
+                readyMillis.get(name)[run] = result[0];
+                rssKilobytes.get(name)[run] = result[1];
+                System.out.printf("run %d %-16s ready %6d ms  rss %6d MB%n", run + 1, name, result[0], result[1] / 1024);
+            }
+        }
+        
+        System.out.println();
+        System.out.printf("%-16s %12s %12s %12s%n", "configuration", "ready p50", "ready min", "rss p50");
+        for (String name : jvmArgs.keySet()) {
+            long[] ready = readyMillis.get(name);
+            long[] rss = rssKilobytes.get(name);
+            Arrays.sort(ready);
+            Arrays.sort(rss);
+            System.out.printf("%-16s %9d ms %9d ms %9d MB%n", name, ready[runs / 2], ready[0], rss[runs / 2] / 1024);
+        }
+    }
+    
+    // Returns {milliseconds until ready, resident set size in KB}
+    private static long[] launch(Map<String, String> options, List<String> jvmArgs, List<String> appArgs) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        if (options.containsKey("jar")) {
+            command.add("-jar");
+            command.add(options.get("jar"));
+        } else {
+            command.add("-cp");
+            command.add(options.get("classpath"));
+            command.add(options.get("main"));
+        }
+        command.add("--server.port=" + options.get("port"));
+        command.addAll(appArgs);
+        
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + options.get("port") + options.get("path")))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString(options.get("user").getBytes(StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("startup-benchmark.log")))
+                .start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see startup-benchmark.log");
+                }
+                if (System.nanoTime() - start > TIMEOUT_NANOS) {
+                    throw new IllegalStateException("Application not ready after 120 s, see startup-benchmark.log");
+                }
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status >= 200 && status < 300) {
+                        break;
+                    }
+                    if (status >= 400 && status < 500) {
+                        throw new IllegalStateException("GET " + options.get("path") + " answered " + status
+                                + "; check user= and path=");
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new long[]{readyMillis, residentSetKilobytes(process.pid())};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+    
+    // VmRSS from /proc on Linux, ps elsewhere
+    private static long residentSetKilobytes(long pid) throws IOException, InterruptedException {
+        Path status = Paths.get("/proc", Long.toString(pid), "status");
+        if (Files.exists(status)) {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        }
+        Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        String output = new String(ps.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        ps.waitFor();
+        return output.isEmpty() ? -1 : Long.parseLong(output);
+    }
+}
\ No newline at end of file
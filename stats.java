@@ -0,0 +1,139 @@
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Student counts per (course, country), loaded once from a GROUP BY and then kept current by
+// StudentService's write path. Deltas are applied after commit so rolled-back writes never count.
+// A writer holds the read side of commitLock from just before its commit until its delta is applied,
+// and reset holds the write side while it counts, so every write is either in the count or applied after it.
+@Component
+public class StudentStats {
+    public static final List<String> GROUP_BY_FIELDS = Arrays.asList("course", "country");
+    
+    private final Map<List<String>, LongAdder> counts = new ConcurrentHashMap<>();
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    
+    // groupedCounts must run its query in a transaction of its own, started after the lock is taken
+    public void reset(Supplier<List<Object[]>> groupedCounts) {
+        commitLock.writeLock().lock();
+        try {
+            List<Object[]> rows = groupedCounts.get();
+            counts.clear();
+            for (Object[] row : rows) {
+                counter((String) row[0], (String) row[1]).add((Long) row[2]);
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+    
+    // Pass nulls for "before" on create and for "after" on delete
+    public void recordChange(Student before, Student after) {
+        String oldCourse = before == null ? null : before.getCourse();
+        String oldCountry = before == null ? null : before.getCountry();
+        String newCourse = after == null ? null : after.getCourse();
+        String newCountry = after == null ? null : after.getCountry();
+        if (before != null && after != null && Objects.equals(oldCourse, newCourse) && Objects.equals(oldCountry, newCountry)) {
+            return;
+        }
+        Runnable apply = () -> {
+            if (before != null) {
+                counter(oldCourse, oldCountry).decrement();
+            }
+            if (after != null) {
+                counter(newCourse, newCountry).increment();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitLock.readLock().lock();
+            try {
+                apply.run();
+            } finally {
+                commitLock.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+            
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitLock.readLock().lock();
+                locked = true;
+            }
+            
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    commitLock.readLock().unlock();
+                }
+            }
+        });
+    }
+    
+    // Rolls the (course, country) counters up to the requested fields
+    public List<Map<String, Object>> countBy(List<String> groupBy) {
+        Map<List<String>, Long> grouped = new TreeMap<>(StudentStats::compareKeys);
+        for (Map.Entry<List<String>, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                grouped.merge(project(entry.getKey(), groupBy), count, Long::sum);
+            }
+        }
+        return toRows(grouped, groupBy);
+    }
+    
+    public static List<Map<String, Object>> toRows(Map<List<String>, Long> grouped, List<String> groupBy) {
+        List<Map<String, Object>> rows = new ArrayList<>(grouped.size());
+        for (Map.Entry<List<String>, Long> entry : grouped.entrySet()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) {
+                row.put(groupBy.get(i), entry.getKey().get(i));
+            }
+            row.put("count", entry.getValue());
+            rows.add(row);
+        }
+        return rows;
+    }
+    
+    public static List<String> project(List<String> key, List<String> groupBy) {
+        List<String> projected = new ArrayList<>(groupBy.size());
+        for (String field : groupBy) {
+            projected.add(key.get(GROUP_BY_FIELDS.indexOf(field)));
+        }
+        return projected;
+    }
+    
+    private LongAdder counter(String course, String country) {
+        return counts.computeIfAbsent(Arrays.asList(course, country), key -> new LongAdder());
+    }
+    
+    private static int compareKeys(List<String> left, List<String> right) {
+        for (int i = 0; i < left.size(); i++) {
+            int result = Objects.compare(left.get(i), right.get(i),
+                    (a, b) -> a == null ? (b == null ? 0 : -1) : b == null ? 1 : a.compareTo(b));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,437 @@
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Optional in-process copy of the students table (students.hot-store.enabled=true) that
+// StudentService reads from instead of StudentRepository. Records live off-heap in direct
+// buffers; the only heap structures are a primitive long -> offset hash table and the
+// course/country dictionaries, so a million students cost a few tens of MB and no GC work.
+//
+// Single-instance deployments only: entries never expire and are only updated by this instance's own
+// writes, so rows changed through another instance (or directly in the database) stay stale until restart.
+//
+// Record layout: id (long), version (long), course code (int), country code (int),
+// first name and last name (int length, -1 for null, then UTF-8 bytes).
+@Component
+@ConditionalOnProperty(name = "students.hot-store.enabled", havingValue = "true")
+public class StudentStore implements MeterBinder {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int HEADER_SIZE = 8 + 8 + 4 + 4;
+    private static final int WARM_PAGE_SIZE = 1000;
+    
+    private final int chunkSize;
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate primaryRead;
+    
+    // Open addressing with linear probing; offsets[i] is (chunk << 32) | position
+    private long[] keys;
+    private long[] offsets;
+    private int size;
+    
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private long usedBytes;
+    private long liveBytes;
+    
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+    
+    // Until warm-up finishes reads go to the database. Removed ids are remembered with the version they were
+    // removed at, so neither the warm-up scan nor the after-commit put of an update that committed just before
+    // the delete can bring the row back. After warm-up a tombstone only has to outlive those in-flight puts.
+    private volatile boolean ready;
+    private final Map<Long, Tombstone> tombstones = new LinkedHashMap<>();
+    private final long tombstoneTtlNanos;
+    
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[256]);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    public StudentStore(StudentRepository studentRepository, PlatformTransactionManager transactionManager,
+                        @Value("${students.hot-store.initial-capacity:1024}") int initialCapacity,
+                        @Value("${students.hot-store.chunk-size:8388608}") int chunkSize,
+                        @Value("${students.hot-store.tombstone-ttl-millis:60000}") long tombstoneTtlMillis) {
+        this.studentRepository = studentRepository;
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.tombstoneTtlNanos = TimeUnit.MILLISECONDS.toNanos(tombstoneTtlMillis);
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity) * 2 - 1);
+        this.keys = newKeys(capacity);
+        this.offsets = new long[capacity];
+    }
+    
+    // Keyset pages, each in its own short read, so no persistence context grows with the table. The reads
+    // are read-write transactions so that, with read/write routing, the store is filled from the primary.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            long afterId = lastId;
+            List<Student> page = primaryRead.execute(status ->
+                    studentRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, WARM_PAGE_SIZE), Student.class));
+            lock.writeLock().lock();
+            try {
+                for (Student student : page) {
+                    putInternal(student);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (page.size() < WARM_PAGE_SIZE) {
+                break;
+            }
+            lastId = page.get(page.size() - 1).getId();
+        }
+        lock.writeLock().lock();
+        try {
+            ready = true;
+            pruneTombstones();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public Optional<Student> get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            return slot < 0 ? Optional.empty() : Optional.of(decode(offsets[slot]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Hands out freshly decoded copies in id-hash order, without holding the lock for the whole scan
+    public void forEach(Consumer<Student> consumer) {
+        long[] snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = new long[size];
+            int count = 0;
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    snapshot[count++] = key;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(snapshot);
+        for (long id : snapshot) {
+            get(id).ifPresent(consumer);
+        }
+    }
+    
+    // Ignored when the store already holds a newer version, or the row was removed at this version or later,
+    // so a late warm-up row or a put racing a delete never wins
+    public void put(Student student) {
+        lock.writeLock().lock();
+        try {
+            putInternal(student);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // version is the one the row had when the delete locked it
+    public void remove(long id, long version) {
+        lock.writeLock().lock();
+        try {
+            tombstones.put(id, new Tombstone(version, System.nanoTime()));
+            if (ready) {
+                pruneTombstones();
+            }
+            int slot = find(id);
+            if (slot >= 0) {
+                liveBytes -= recordSize(offsets[slot]);
+                deleteSlot(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("students.hotstore.size", this, StudentStore::size)
+                .description("Students held in the hot store")
+                .register(registry);
+        Gauge.builder("students.hotstore.offheap", this, store -> store.chunks.size() * (double) store.chunkSize)
+                .description("Direct memory reserved for student records")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+    
+    private void putInternal(Student student) {
+        long id = student.getId();
+        long version = student.getVersion() == null ? 0 : student.getVersion();
+        Tombstone tombstone = tombstones.get(id);
+        if (tombstone != null && tombstone.version >= version) {
+            return;
+        }
+        int slot = find(id);
+        if (slot >= 0 && versionAt(offsets[slot]) > version) {
+            return;
+        }
+        byte[] firstName = bytes(student.getFirstName());
+        byte[] lastName = bytes(student.getLastName());
+        int recordSize = HEADER_SIZE + 4 + length(firstName) + 4 + length(lastName);
+        long offset = allocate(recordSize);
+        ByteBuffer chunk = chunks.get((int) (offset >>> 32));
+        int position = (int) offset;
+        chunk.putLong(position, id);
+        chunk.putLong(position + 8, version);
+        chunk.putInt(position + 16, encode(student.getCourse()));
+        chunk.putInt(position + 20, encode(student.getCountry()));
+        position = putBytes(chunk, position + HEADER_SIZE, firstName);
+        putBytes(chunk, position, lastName);
+        
+        if (slot >= 0) {
+            liveBytes -= recordSize(offsets[slot]);
+            offsets[slot] = offset;
+        } else {
+            insertSlot(id, offset);
+        }
+        liveBytes += recordSize;
+        if (usedBytes > 2L * chunkSize && usedBytes > 2 * liveBytes) {
+            compact();
+        }
+    }
+    
+    // Oldest first, so the scan stops at the first tombstone that is still needed
+    private void pruneTombstones() {
+        long now = System.nanoTime();
+        Iterator<Tombstone> iterator = tombstones.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().removedAt > tombstoneTtlNanos) {
+            iterator.remove();
+        }
+    }
+    
+    private Student decode(long offset) {
+        ByteBuffer chunk = chunks.get((int) (offset >>> 32));
+        int position = (int) offset;
+        Student student = new Student();
+        student.setId(chunk.getLong(position));
+        student.setVersion(chunk.getLong(position + 8));
+        student.setCourse(decode(chunk.getInt(position + 16)));
+        student.setCountry(decode(chunk.getInt(position + 20)));
+        position += HEADER_SIZE;
+        student.setFirstName(readString(chunk, position));
+        position += 4 + Math.max(0, chunk.getInt(position));
+        student.setLastName(readString(chunk, position));
+        return student;
+    }
+    
+    private String readString(ByteBuffer chunk, int position) {
+        int length = chunk.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] buffer = scratch.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            scratch.set(buffer);
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[i] = chunk.get(position + 4 + i);
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    private long versionAt(long offset) {
+        return chunks.get((int) (offset >>> 32)).getLong((int) offset + 8);
+    }
+    
+    private int recordSize(long offset) {
+        ByteBuffer chunk = chunks.get((int) (offset >>> 32));
+        int position = (int) offset + HEADER_SIZE;
+        int firstLength = Math.max(0, chunk.getInt(position));
+        int lastLength = Math.max(0, chunk.getInt(position + 4 + firstLength));
+        return HEADER_SIZE + 4 + firstLength + 4 + lastLength;
+    }
+    
+    // Bump allocation in the newest chunk; the unused tail of a full chunk counts as garbage
+    private long allocate(int recordSize) {
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < recordSize) {
+            if (chunk != null) {
+                usedBytes += chunk.remaining();
+            }
+            chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, recordSize));
+            chunks.add(chunk);
+        }
+        int position = chunk.position();
+        chunk.position(position + recordSize);
+        usedBytes += recordSize;
+        return ((long) (chunks.size() - 1) << 32) | position;
+    }
+    
+    // Copies live records into fresh chunks once more than half the allocated space is garbage
+    private void compact() {
+        List<ByteBuffer> oldChunks = new ArrayList<>(chunks);
+        chunks.clear();
+        usedBytes = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == EMPTY) {
+                continue;
+            }
+            long offset = offsets[slot];
+            ByteBuffer source = oldChunks.get((int) (offset >>> 32));
+            int from = (int) offset;
+            int recordSize = HEADER_SIZE + 4 + Math.max(0, source.getInt(from + HEADER_SIZE));
+            recordSize += 4 + Math.max(0, source.getInt(from + recordSize));
+            long target = allocate(recordSize);
+            ByteBuffer destination = chunks.get((int) (target >>> 32));
+            for (int i = 0; i < recordSize; i++) {
+                destination.put((int) target + i, source.get(from + i));
+            }
+            offsets[slot] = target;
+        }
+    }
+    
+    private int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = dictionaryCodes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            dictionaryCodes.put(value, code);
+        }
+        return code;
+    }
+    
+    private String decode(int code) {
+        return code < 0 ? null : dictionary.get(code);
+    }
+    
+    private int find(long id) {
+        int mask = keys.length - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+    
+    private void insertSlot(long id, long offset) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int slot = hash(id) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        offsets[slot] = offset;
+        size++;
+    }
+    
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                offsets[gap] = offsets[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+    
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldOffsets = offsets;
+        keys = newKeys(oldKeys.length * 2);
+        offsets = new long[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insertSlot(oldKeys[i], oldOffsets[i]);
+            }
+        }
+    }
+    
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+    
+    private static int hash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+    
+    private static class Tombstone {
+        private final long version;
+        private final long removedAt;
+        
+        Tombstone(long version, long removedAt) {
+            this.version = version;
+            this.removedAt = removedAt;
+        }
+    }
+    
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+    
+    private static int putBytes(ByteBuffer chunk, int position, byte[] value) {
+        if (value == null) {
+            chunk.putInt(position, -1);
+            return position + 4;
+        }
+        chunk.putInt(position, value.length);
+        for (int i = 0; i < value.length; i++) {
+            chunk.put(position + 4 + i, value[i]);
+        }
+        return position + 4 + value.length;
+    }
+}
\ No newline at end of file
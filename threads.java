@@ -0,0 +1,207 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Opt-in mode (students.virtual-threads.enabled=true, JDK 21+) that runs Tomcat request handling and
+// async MVC work on virtual threads. Because virtual threads no longer bound concurrency, connection
+// checkouts are gated by a fair semaphore sized to the connection pool.
+@Configuration
+@ConditionalOnProperty(name = "students.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+    
+    private ExecutorService virtualThreadExecutor;
+    
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = virtualThreadExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor()));
+    }
+    
+    // Looked up by reflection, and only once this mode is on, so the rest of the application still builds
+    // and runs on JDKs without virtual threads
+    private synchronized ExecutorService virtualThreadExecutor() {
+        if (virtualThreadExecutor == null) {
+            try {
+                virtualThreadExecutor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("students.virtual-threads.enabled=true requires JDK 21 or later", e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create the virtual-thread executor", e);
+            }
+        }
+        return virtualThreadExecutor;
+    }
+    
+    @Bean
+    public static DatabaseConcurrencyLimiter databaseConcurrencyLimiter(
+            @Value("${students.virtual-threads.db-acquire-timeout:PT5S}") Duration acquireTimeout) {
+        return new DatabaseConcurrencyLimiter(acquireTimeout);
+    }
+    
+    // Wraps the application's Hikari pool so that a permit is taken before each physical connection checkout.
+    // Work that never opens a connection (cache and hot-store hits) needs no permit, and a thread that already
+    // holds a connection from the pool (nested or REQUIRES_NEW work) does not take a second one, so it cannot
+    // deadlock on its own permit. A timeout surfaces as SQLTransientConnectionException, which Spring translates
+    // into a data-access exception: HTTP callers get a 503, background jobs see an ordinary transient failure.
+    public static class DatabaseConcurrencyLimiter implements BeanPostProcessor {
+        private final long acquireTimeoutNanos;
+        // Every pool limited so far, including the per-pool ones RoutingDataSourceConfig creates outside the context
+        private final List<LimitedDataSource> limited = new CopyOnWriteArrayList<>();
+        
+        public DatabaseConcurrencyLimiter(Duration acquireTimeout) {
+            this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        }
+        
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if ("dataSource".equals(beanName) && bean instanceof HikariDataSource) {
+                return limit((HikariDataSource) bean);
+            }
+            return bean;
+        }
+        
+        public LimitedDataSource limit(HikariDataSource pool) {
+            LimitedDataSource dataSource = new LimitedDataSource(pool, pool.getMaximumPoolSize(), acquireTimeoutNanos);
+            limited.add(dataSource);
+            return dataSource;
+        }
+        
+        // Threads waiting for a permit on any of the limited pools
+        public int queueLength() {
+            int waiting = 0;
+            for (LimitedDataSource dataSource : limited) {
+                waiting += dataSource.queueLength();
+            }
+            return waiting;
+        }
+    }
+    
+    public static class LimitedDataSource extends DelegatingDataSource {
+        private final Semaphore semaphore;
+        private final long acquireTimeoutNanos;
+        // Connections this thread currently holds from the pool
+        private final ThreadLocal<AtomicInteger> held = ThreadLocal.withInitial(AtomicInteger::new);
+        
+        LimitedDataSource(DataSource pool, int permits, long acquireTimeoutNanos) {
+            super(pool);
+            this.semaphore = new Semaphore(permits, true);
+            this.acquireTimeoutNanos = acquireTimeoutNanos;
+        }
+        
+        @Override
+        public Connection getConnection() throws SQLException {
+            AtomicInteger connections = held.get();
+            boolean permit = acquire(connections);
+            try {
+                return track(super.getConnection(), connections, permit);
+            } catch (SQLException | RuntimeException e) {
+                if (permit) {
+                    semaphore.release();
+                }
+                throw e;
+            }
+        }
+        
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            AtomicInteger connections = held.get();
+            boolean permit = acquire(connections);
+            try {
+                return track(super.getConnection(username, password), connections, permit);
+            } catch (SQLException | RuntimeException e) {
+                if (permit) {
+                    semaphore.release();
+                }
+                throw e;
+            }
+        }
+        
+        public int availablePermits() {
+            return semaphore.availablePermits();
+        }
+        
+        public int queueLength() {
+            return semaphore.getQueueLength();
+        }
+        
+        // Only the thread's first connection takes a permit
+        private boolean acquire(AtomicInteger connections) throws SQLException {
+            if (connections.get() > 0) {
+                return false;
+            }
+            try {
+                if (!semaphore.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new SQLTransientConnectionException("Database is busy, retry later");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+            }
+            return true;
+        }
+        
+        private Connection track(Connection target, AtomicInteger connections, boolean permit) {
+            connections.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                    new Class<?>[]{ConnectionProxy.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getTargetConnection":
+                                return target;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "close":
+                                if (closed.compareAndSet(false, true)) {
+                                    try {
+                                        target.close();
+                                    } finally {
+                                        connections.decrementAndGet();
+                                        if (permit) {
+                                            semaphore.release();
+                                        }
+                                    }
+                                }
+                                return null;
+                            default:
+                                try {
+                                    return method.invoke(target, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getTargetException();
+                                }
+                        }
+                    });
+        }
+    }
+}
\ No newline at end of file
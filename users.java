@@ -0,0 +1,41 @@
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+
+// Users and the cached BCrypt provider, shared by the servlet and the reactive security configurations
+@Configuration
+public class AuthenticationConfig {
+    
+    @Value("${security.auth-cache.ttl:PT1M}")
+    private Duration authCacheTtl;
+    
+    @Value("${security.auth-cache.max-size:10000}")
+    private int authCacheMaxSize;
+    
+    @Bean
+    public InMemoryUserDetailsManager userDetailsManager() {
+        return new InMemoryUserDetailsManager(
+                User.withUsername("admin").password(passwordEncoder().encode("adminPass")).roles("ADMIN").build(),
+                User.withUsername("user").password(passwordEncoder().encode("userPass")).roles("USER").build());
+    }
+    
+    @Bean
+    public CachingAuthenticationProvider cachingAuthenticationProvider() {
+        DaoAuthenticationProvider bcryptProvider = new DaoAuthenticationProvider();
+        bcryptProvider.setUserDetailsService(userDetailsManager());
+        bcryptProvider.setPasswordEncoder(passwordEncoder());
+        return new CachingAuthenticationProvider(bcryptProvider, userDetailsManager(), authCacheTtl, authCacheMaxSize);
+    }
+    
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
\ No newline at end of file
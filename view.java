@@ -0,0 +1,14 @@
+// Closed interface projection: Spring Data selects just these columns and builds no managed entity
+public interface StudentView {
+    Long getId();
+    
+    String getFirstName();
+    
+    String getLastName();
+    
+    String getCourse();
+    
+    String getCountry();
+    
+    Long getVersion();
+}
\ No newline at end of file